@@ -2,10 +2,10 @@ package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.model.FeedEvent;
 import ru.yandex.practicum.filmorate.service.FeedService;
 
@@ -16,11 +16,31 @@ import java.util.List;
 @RequestMapping("/users/{userId}/feed")
 @RequiredArgsConstructor
 public class FeedController {
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
     private final FeedService feedService;
+    private final JsonStreamWriter jsonStreamWriter;
 
     @GetMapping
-    public List<FeedEvent> getUserFeed(@PathVariable int userId) {
-        log.info("Получаем ленту событий для пользователя с id= {}", userId);
-        return feedService.getUserFeed(userId);
+    public List<FeedEvent> getUserFeed(
+            @PathVariable int userId,
+            @RequestParam(required = false) Integer after,
+            @RequestParam(required = false) Integer before,
+            @RequestParam(required = false) Integer limit) {
+        if (after == null && before == null && limit == null) {
+            log.info("Получаем ленту событий для пользователя с id= {}", userId);
+            return feedService.getUserFeed(userId);
+        }
+        log.info("Получаем страницу ленты пользователя {}: after={}, before={}, limit={}", userId, after, before, limit);
+        return feedService.getUserFeedPage(userId, after, before, limit != null ? limit : DEFAULT_PAGE_SIZE);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUserFeed(@PathVariable int userId) {
+        log.info("Выгрузка всей ленты событий пользователя {}", userId);
+        StreamingResponseBody body = jsonStreamWriter.writeArray(feedService.streamUserFeed(userId));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
     }
 }
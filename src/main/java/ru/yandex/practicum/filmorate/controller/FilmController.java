@@ -3,51 +3,43 @@ package ru.yandex.practicum.filmorate.controller;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import ru.yandex.practicum.filmorate.exception.DirectorNotFoundException;
-import ru.yandex.practicum.filmorate.exception.GenreNotFoundException;
-import ru.yandex.practicum.filmorate.exception.MpaNotFoundException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
-import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.FilmPatch;
 import ru.yandex.practicum.filmorate.service.FilmService;
-import ru.yandex.practicum.filmorate.service.DirectorService;
-import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
-import ru.yandex.practicum.filmorate.storage.mpa.MpaStorage;
+import ru.yandex.practicum.filmorate.service.ReferenceValidator;
 
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
-import java.util.Set;
 
 @Slf4j
 @RestController
 @RequestMapping("/films")
 public class FilmController {
     private final FilmService filmService;
-    private final MpaStorage mpaStorage;
-    private final GenreStorage genreStorage;
+    private final ReferenceValidator referenceValidator;
     private static final LocalDate CINEMA_BIRTHDAY = LocalDate.of(1895, 12, 28);
-    private final DirectorService directorService;
+    private final JsonStreamWriter jsonStreamWriter;
 
     @Autowired
-    public FilmController(FilmService filmService, MpaStorage mpaStorage,
-                          GenreStorage genreStorage, DirectorService directorService) {
+    public FilmController(FilmService filmService, ReferenceValidator referenceValidator,
+                          JsonStreamWriter jsonStreamWriter) {
         this.filmService = filmService;
-        this.mpaStorage = mpaStorage;
-        this.genreStorage = genreStorage;
-        this.directorService = directorService;
+        this.referenceValidator = referenceValidator;
+        this.jsonStreamWriter = jsonStreamWriter;
     }
 
     @PostMapping
     public Film create(@RequestBody Film film) {
         log.info("Запрос на создание фильма: {}", film);
         validateFilm(film);
-        validateMpa(film.getMpa().getId());
-        validateGenres(film.getGenres());
-        validateDirectors(film.getDirectors());
+        referenceValidator.validate(film);
         Film createdFilm = filmService.create(film);
         log.info("Создан новый фильм: {}", createdFilm);
         return createdFilm;
@@ -57,17 +49,42 @@ public class FilmController {
     public Film update(@RequestBody Film film) {
         log.info("Запрос на обновление фильма: {}", film);
         validateFilm(film);
-        validateMpa(film.getMpa().getId());
-        validateGenres(film.getGenres());
-        validateDirectors(film.getDirectors());
+        referenceValidator.validate(film);
+        Film updatedFilm = filmService.update(film);
+        log.info("Обновлен фильм: {}", updatedFilm);
+        return updatedFilm;
+    }
+
+    @PatchMapping("/{id}")
+    public Film patch(@PathVariable int id, @RequestBody FilmPatch patch) {
+        log.info("Запрос на частичное обновление фильма {}: {}", id, patch);
+        Film film = filmService.mergePatch(id, patch);
+        validateFilm(film);
+        referenceValidator.validate(film);
         Film updatedFilm = filmService.update(film);
         log.info("Обновлен фильм: {}", updatedFilm);
         return updatedFilm;
     }
 
     @GetMapping
-    public Collection<Film> getAll() {
-        return filmService.getAll();
+    public ResponseEntity<? extends Collection<?>> getAll(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String hydration) {
+        if (limit == null && cursor == null && fields == null) {
+            return ResponseEntity.ok(filmService.getAll(hydration));
+        }
+        log.info("Запрос страницы фильмов: limit={}, cursor={}, fields={}", limit, cursor, fields);
+        return PageResponses.of(filmService.getFilmsPage(cursor, pageSize(limit), fields));
+    }
+
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        log.info("Потоковая выгрузка всех фильмов");
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(jsonStreamWriter.writeArray(filmService.streamAll()));
     }
 
     @GetMapping("/{id}")
@@ -113,9 +130,12 @@ public class FilmController {
     }
 
     @GetMapping("/director/{directorId}")
-    public List<Film> getFilmsByDirector(
+    public ResponseEntity<? extends List<?>> getFilmsByDirector(
             @PathVariable int directorId,
-            @RequestParam(defaultValue = "likes") String sortBy) {
+            @RequestParam(defaultValue = "likes") String sortBy,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String fields) {
 
         log.info("Запрос фильмов режиссера {} с сортировкой по {}", directorId, sortBy);
 
@@ -123,15 +143,37 @@ public class FilmController {
             throw new ValidationException("Параметр sortBy может быть только 'year' или 'likes'");
         }
 
-        return filmService.getFilmsByDirector(directorId, sortBy);
+        if (limit == null && cursor == null && fields == null) {
+            return ResponseEntity.ok(filmService.getFilmsByDirector(directorId, sortBy));
+        }
+        return PageResponses.of(filmService.getFilmsByDirectorPage(directorId, sortBy, cursor,
+                pageSize(limit), fields));
     }
 
     @GetMapping("/search")
-    public List<Film> searchFilms(
+    public ResponseEntity<? extends List<?>> searchFilms(
             @RequestParam String query,
-            @RequestParam(defaultValue = "title,director") String[] by) {
+            @RequestParam(defaultValue = "title,director") String[] by,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String fields) {
         log.info("Поиск фильмов по запросу: '{}', параметры поиска: {}", query, Arrays.toString(by));
-        return filmService.searchFilms(query, by);
+        if (limit == null && cursor == null && fields == null) {
+            return ResponseEntity.ok(filmService.searchFilms(query, by));
+        }
+        return PageResponses.of(filmService.searchFilmsPage(query, by, cursor, pageSize(limit), fields));
+    }
+
+    @GetMapping("/search/suggest")
+    public List<String> suggest(
+            @RequestParam(defaultValue = "") String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        log.debug("Подсказки для префикса '{}', limit={}", prefix, limit);
+        return filmService.suggest(prefix, limit);
+    }
+
+    private int pageSize(Integer limit) {
+        return limit != null ? limit : PageResponses.DEFAULT_PAGE_SIZE;
     }
 
     private void validateFilm(Film film) {
@@ -156,36 +198,4 @@ public class FilmController {
             throw new ValidationException("Продолжительность должна быть положительной");
         }
     }
-
-    private void validateMpa(int mpaId) {
-        try {
-            mpaStorage.getById(mpaId);
-        } catch (MpaNotFoundException e) {
-            throw new MpaNotFoundException("Рейтинг MPA с id=" + mpaId + " не найден");
-        }
-    }
-
-    private void validateGenres(Set<Genre> genres) {
-        if (genres != null) {
-            for (Genre genre : genres) {
-                try {
-                    genreStorage.getById(genre.getId());
-                } catch (GenreNotFoundException e) {
-                    throw new GenreNotFoundException("Жанр с id=" + genre.getId() + " не найден");
-                }
-            }
-        }
-    }
-
-    private void validateDirectors(Set<Director> directors) {
-        if (directors != null) {
-            for (Director director : directors) {
-                try {
-                    directorService.getById(director.getId());
-                } catch (DirectorNotFoundException e) {
-                    throw new DirectorNotFoundException("Режиссер с id=" + director.getId() + " не найден");
-                }
-            }
-        }
-    }
 }
\ No newline at end of file
@@ -52,27 +52,28 @@ public class ReviewController {
         return reviewService.getReviewsByFilmId(filmId, count);
     }
 
+    // голосование возвращает новое значение полезности отзыва
     @PutMapping("/{id}/like/{userId}")
-    public void addLike(@PathVariable int id, @PathVariable int userId) {
+    public int addLike(@PathVariable int id, @PathVariable int userId) {
         log.info("Добавление лайка отзыву {} от пользователя {}", id, userId);
-        reviewService.addLike(id, userId);
+        return reviewService.addLike(id, userId);
     }
 
     @PutMapping("/{id}/dislike/{userId}")
-    public void addDislike(@PathVariable int id, @PathVariable int userId) {
+    public int addDislike(@PathVariable int id, @PathVariable int userId) {
         log.info("Добавление дизлайка отзыву {} от пользователя {}", id, userId);
-        reviewService.addDislike(id, userId);
+        return reviewService.addDislike(id, userId);
     }
 
     @DeleteMapping("/{id}/like/{userId}")
-    public void removeLike(@PathVariable int id, @PathVariable int userId) {
+    public int removeLike(@PathVariable int id, @PathVariable int userId) {
         log.info("Удаление лайка отзыва {} пользователем {}", id, userId);
-        reviewService.removeLike(id, userId);
+        return reviewService.removeLike(id, userId);
     }
 
     @DeleteMapping("/{id}/dislike/{userId}")
-    public void removeDislike(@PathVariable int id, @PathVariable int userId) {
+    public int removeDislike(@PathVariable int id, @PathVariable int userId) {
         log.info("Удаление дизлайка отзыва {} пользователем {}", id, userId);
-        reviewService.removeDislike(id, userId);
+        return reviewService.removeDislike(id, userId);
     }
 }
\ No newline at end of file
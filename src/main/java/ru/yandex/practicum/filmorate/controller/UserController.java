@@ -3,7 +3,10 @@ package ru.yandex.practicum.filmorate.controller;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.UserService;
@@ -17,10 +20,12 @@ import java.util.List;
 @RequestMapping("/users")
 public class UserController {
     private final UserService userService;
+    private final JsonStreamWriter jsonStreamWriter;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, JsonStreamWriter jsonStreamWriter) {
         this.userService = userService;
+        this.jsonStreamWriter = jsonStreamWriter;
     }
 
     @PostMapping
@@ -44,8 +49,23 @@ public class UserController {
     }
 
     @GetMapping
-    public Collection<User> getAll() {
-        return userService.getAll();
+    public ResponseEntity<? extends Collection<User>> getAll(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        if (limit == null && cursor == null) {
+            return ResponseEntity.ok(userService.getAll());
+        }
+        log.info("Запрос страницы пользователей: limit={}, cursor={}", limit, cursor);
+        int pageSize = limit != null ? limit : PageResponses.DEFAULT_PAGE_SIZE;
+        return PageResponses.of(userService.getUsersPage(cursor, pageSize));
+    }
+
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        log.info("Потоковая выгрузка всех пользователей");
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(jsonStreamWriter.writeArray(userService.streamAll()));
     }
 
     @GetMapping("/{id}")
@@ -92,6 +112,14 @@ public class UserController {
         return userService.getCommonFriends(id, otherId);
     }
 
+    @GetMapping("/{id}/friends/suggestions")
+    public List<User> getFriendSuggestions(
+            @PathVariable int id,
+            @RequestParam(defaultValue = "10") int limit) {
+        log.debug("Подбор возможных друзей для пользователя {}, limit={}", id, limit);
+        return userService.getFriendSuggestions(id, limit);
+    }
+
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void deleteUser(@PathVariable int id) {
@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+// Поля фильма, которые клиент может запросить через параметр fields
+public enum FilmField {
+    ID("id"),
+    NAME("name"),
+    DESCRIPTION("description"),
+    RELEASE_DATE("releaseDate"),
+    DURATION("duration"),
+    MPA("mpa"),
+    GENRES("genres"),
+    DIRECTORS("directors");
+
+    private final String jsonName;
+
+    FilmField(String jsonName) {
+        this.jsonName = jsonName;
+    }
+
+    public static Optional<FilmField> fromJsonName(String name) {
+        return Arrays.stream(values())
+                .filter(field -> field.jsonName.equals(name))
+                .findFirst();
+    }
+}
@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+// Частичное обновление фильма: поля, равные null, остаются прежними
+@Data
+public class FilmPatch {
+    private String name;
+    private String description;
+    private LocalDate releaseDate;
+    private Integer duration;
+    private MpaRating mpa;
+    private Set<Genre> genres;
+    private Set<Director> directors;
+
+    // новый фильм с заданными полями поверх текущего; сам текущий фильм не меняется
+    public Film applyTo(Film current) {
+        Film.FilmBuilder builder = current.toBuilder();
+        if (name != null) {
+            builder.name(name);
+        }
+        if (description != null) {
+            builder.description(description);
+        }
+        if (releaseDate != null) {
+            builder.releaseDate(releaseDate);
+        }
+        if (duration != null) {
+            builder.duration(duration);
+        }
+        if (mpa != null) {
+            builder.mpa(mpa);
+        }
+        if (genres != null) {
+            builder.genres(genres);
+        }
+        if (directors != null) {
+            builder.directors(directors);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+// Фильм для постраничной выдачи с параметром fields: незапрошенные поля равны null и не попадают в JSON
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FilmProjection {
+    private int id;
+    private String name;
+    private String description;
+    private LocalDate releaseDate;
+    private Integer duration;
+    private MpaRating mpa;
+    private Set<Genre> genres;
+    private Set<Director> directors;
+}
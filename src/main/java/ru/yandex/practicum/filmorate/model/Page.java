@@ -0,0 +1,12 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class Page<T> {
+    List<T> items;
+    // null, если страница последняя
+    String nextCursor;
+}
@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Value;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Позиция последней отданной записи: значение ключа сортировки и id для разрешения равенства
+@Value
+public class PageCursor {
+    String sortKey;
+    int id;
+
+    public String encode() {
+        String raw = (sortKey != null ? sortKey : "") + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            if (separator < 0) {
+                throw new ValidationException("Некорректный курсор: " + cursor);
+            }
+            String sortKey = separator > 0 ? raw.substring(0, separator) : null;
+            return new PageCursor(sortKey, Integer.parseInt(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Некорректный курсор: " + cursor);
+        }
+    }
+
+    public int intKey() {
+        try {
+            return Integer.parseInt(String.valueOf(sortKey));
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Курсор не подходит для сортировки по лайкам");
+        }
+    }
+
+    public LocalDate dateKey() {
+        try {
+            return LocalDate.parse(String.valueOf(sortKey));
+        } catch (DateTimeParseException e) {
+            throw new ValidationException("Курсор не подходит для сортировки по году");
+        }
+    }
+}
@@ -3,7 +3,11 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceDataCache;
 import ru.yandex.practicum.filmorate.storage.director.DirectorStorage;
+import ru.yandex.practicum.filmorate.storage.index.DirectorFilmIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmSuggestIndex;
 
 import java.util.List;
 
@@ -11,6 +15,10 @@ import java.util.List;
 @RequiredArgsConstructor
 public class DirectorService {
     private final DirectorStorage directorStorage;
+    private final FilmSearchIndex searchIndex;
+    private final FilmSuggestIndex suggestIndex;
+    private final DirectorFilmIndex directorFilmIndex;
+    private final ReferenceDataCache referenceData;
 
     public List<Director> getAll() {
         return directorStorage.getAll();
@@ -21,16 +29,28 @@ public class DirectorService {
     }
 
     public Director create(Director director) {
-        return directorStorage.create(director);
+        Director created = directorStorage.create(director);
+        referenceData.putDirector(created);
+        searchIndex.addDirector(created);
+        suggestIndex.addDirector(created);
+        return created;
     }
 
     public Director update(Director director) {
         getById(director.getId());
-        return directorStorage.update(director);
+        Director updated = directorStorage.update(director);
+        referenceData.putDirector(updated);
+        searchIndex.updateDirector(updated);
+        suggestIndex.updateDirector(updated);
+        return updated;
     }
 
     public void delete(int id) {
         getById(id);
         directorStorage.delete(id);
+        referenceData.removeDirector(id);
+        searchIndex.removeDirector(id);
+        suggestIndex.removeDirector(id);
+        directorFilmIndex.removeDirector(id);
     }
 }
\ No newline at end of file
@@ -5,12 +5,11 @@ import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.EventType;
 import ru.yandex.practicum.filmorate.model.FeedEvent;
 import ru.yandex.practicum.filmorate.model.OperationType;
-import ru.yandex.practicum.filmorate.storage.dao.FeedDao;
 
 @Component
 @RequiredArgsConstructor
 public class EventLogger {
-    private final FeedDao feedDao;
+    private final FeedEventPipeline feedEventPipeline;
 
     public void log(int userId, EventType type, OperationType operation, int entityId) {
         FeedEvent event = FeedEvent.builder()
@@ -20,6 +19,6 @@ public class EventLogger {
                 .operationType(operation)
                 .entityId(entityId)
                 .build();
-        feedDao.addEvent(event);
+        feedEventPipeline.submit(event);
     }
 }
@@ -0,0 +1,207 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.FeedEvent;
+import ru.yandex.practicum.filmorate.storage.dao.FeedDao;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Отложенная пакетная запись событий ленты. События остаются в буфере до фиксации в БД,
+// поэтому чтение ленты может дополнить результат ещё не записанными событиями пользователя.
+@Component
+@Slf4j
+public class FeedEventPipeline {
+    private final FeedDao feedDao;
+    private final int batchSize;
+    private final int capacity;
+    private final long offerTimeoutMs;
+    private final long flushIntervalMs;
+    private final ScheduledExecutorService flusher;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Deque<FeedEvent> pending = new ArrayDeque<>();
+
+    private final AtomicInteger lastEventId = new AtomicInteger();
+    private final AtomicLong flushed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public FeedEventPipeline(FeedDao feedDao,
+                             @Value("${filmorate.feed.batch-size:100}") int batchSize,
+                             @Value("${filmorate.feed.queue-capacity:10000}") int capacity,
+                             @Value("${filmorate.feed.offer-timeout-ms:50}") long offerTimeoutMs,
+                             @Value("${filmorate.feed.flush-interval-ms:200}") long flushIntervalMs) {
+        this.feedDao = feedDao;
+        this.batchSize = batchSize;
+        this.capacity = capacity;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.flushIntervalMs = flushIntervalMs;
+        // свой поток записи: общий планировщик Spring занят пересчётами и не должен задерживать ленту
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "feed-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void init() {
+        // id событий выдаём сами, чтобы у ещё не записанных событий они уже были окончательными
+        lastEventId.set(feedDao.getMaxEventId());
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void submit(FeedEvent event) {
+        event.setEventId(lastEventId.incrementAndGet());
+        try {
+            while (!tryEnqueue(event)) {
+                // буфер переполнен и фоновая запись не успевает: пишем накопленное сами
+                flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            feedDao.addEvent(event);
+        }
+    }
+
+    public List<FeedEvent> getPendingEvents(int userId) {
+        List<FeedEvent> result = new ArrayList<>();
+        lock.lock();
+        try {
+            for (FeedEvent event : pending) {
+                if (event.getUserId() == userId) {
+                    result.add(event);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return result;
+    }
+
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<FeedEvent> batch = peekBatch();
+            int written = 0;
+            while (!batch.isEmpty()) {
+                write(batch);
+                release(batch.size());
+                written += batch.size();
+                batch = peekBatch();
+            }
+            if (written > 0) {
+                log.debug("Записано {} событий ленты, всего записано {}, потеряно {}",
+                        written, flushed.get(), dropped.get());
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(flushIntervalMs * 10, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        log.info("Буфер событий ленты сброшен при остановке: записано {}, потеряно {}", flushed.get(), dropped.get());
+    }
+
+    private boolean tryEnqueue(FeedEvent event) throws InterruptedException {
+        lock.lock();
+        try {
+            long nanos = TimeUnit.MILLISECONDS.toNanos(offerTimeoutMs);
+            while (pending.size() >= capacity) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            pending.addLast(event);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // события добавляются только в хвост, а снимает их с головы только пишущий поток,
+    // поэтому первые batch.size() элементов буфера и есть записанный пакет
+    private List<FeedEvent> peekBatch() {
+        lock.lock();
+        try {
+            List<FeedEvent> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+            Iterator<FeedEvent> iterator = pending.iterator();
+            while (iterator.hasNext() && batch.size() < batchSize) {
+                batch.add(iterator.next());
+            }
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(int count) {
+        lock.lock();
+        try {
+            for (int i = 0; i < count; i++) {
+                pending.pollFirst();
+            }
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // исключение остановило бы периодическую запись, поэтому только логируем
+            log.error("Не удалось записать события ленты", e);
+        }
+    }
+
+    private void write(List<FeedEvent> batch) {
+        try {
+            feedDao.addEvents(batch);
+            flushed.addAndGet(batch.size());
+        } catch (DataAccessException e) {
+            // например, пользователь удалён раньше, чем записались его события: пишем по одному
+            log.warn("Не удалось записать пакет из {} событий ленты: {}", batch.size(), e.getMessage());
+            for (FeedEvent event : batch) {
+                try {
+                    feedDao.addEvent(event);
+                    flushed.incrementAndGet();
+                } catch (DuplicateKeyException alreadyWritten) {
+                    // часть пакета успела записаться до ошибки
+                    flushed.incrementAndGet();
+                } catch (DataAccessException eventException) {
+                    dropped.incrementAndGet();
+                    log.warn("Событие ленты {} отброшено: {}", event, eventException.getMessage());
+                }
+            }
+        }
+    }
+}
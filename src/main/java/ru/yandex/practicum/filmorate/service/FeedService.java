@@ -3,22 +3,86 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.UserNotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.FeedEvent;
 import ru.yandex.practicum.filmorate.storage.dao.FeedDao;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
-import java.util.List;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class FeedService {
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final FeedDao feedDao;
+    private final FeedEventPipeline feedEventPipeline;
     @Qualifier("userDbStorage")
     private final UserStorage userStorage;
 
     public List<FeedEvent> getUserFeed(int userId) {
-        userStorage.getById(userId);
-        return feedDao.getEventsByUserId(userId);
+        checkUser(userId);
+        List<FeedEvent> pendingEvents = feedEventPipeline.getPendingEvents(userId);
+        List<FeedEvent> storedEvents = feedDao.getEventsByUserId(userId);
+        return mergePending(storedEvents, pendingEvents);
+    }
+
+    public List<FeedEvent> getUserFeedPage(int userId, Integer afterId, Integer beforeId, int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Параметр limit должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        checkUser(userId);
+
+        List<FeedEvent> pendingEvents = feedEventPipeline.getPendingEvents(userId).stream()
+                .filter(event -> afterId == null || event.getEventId() > afterId)
+                .filter(event -> beforeId == null || event.getEventId() < beforeId)
+                .collect(Collectors.toList());
+        List<FeedEvent> storedEvents = feedDao.getEventsPage(userId, afterId, beforeId, limit);
+        if (pendingEvents.isEmpty()) {
+            return storedEvents;
+        }
+
+        Map<Integer, FeedEvent> eventsById = new TreeMap<>();
+        storedEvents.forEach(event -> eventsById.put(event.getEventId(), event));
+        pendingEvents.forEach(event -> eventsById.putIfAbsent(event.getEventId(), event));
+        List<FeedEvent> merged = new ArrayList<>(eventsById.values());
+        if (merged.size() <= limit) {
+            return merged;
+        }
+        // страница перед before примыкает к нему, остальные начинаются сразу после after
+        boolean backwards = afterId == null && beforeId != null;
+        return backwards ? merged.subList(merged.size() - limit, merged.size()) : merged.subList(0, limit);
+    }
+
+    // неполный буфер сначала сбрасываем в БД, чтобы выгрузка читалась одним курсором
+    public Consumer<Consumer<FeedEvent>> streamUserFeed(int userId) {
+        checkUser(userId);
+        feedEventPipeline.flush();
+        return consumer -> feedDao.streamEventsByUserId(userId, consumer);
+    }
+
+    private void checkUser(int userId) {
+        if (!userStorage.exists(userId)) {
+            throw new UserNotFoundException("Пользователь с id=" + userId + " не найден");
+        }
+    }
+
+    // буфер читается раньше БД, поэтому событие, записанное между чтениями, попадёт в оба списка
+    private List<FeedEvent> mergePending(List<FeedEvent> storedEvents, List<FeedEvent> pendingEvents) {
+        if (pendingEvents.isEmpty()) {
+            return storedEvents;
+        }
+        Map<Integer, FeedEvent> eventsById = new LinkedHashMap<>();
+        storedEvents.forEach(event -> eventsById.put(event.getEventId(), event));
+        pendingEvents.forEach(event -> eventsById.putIfAbsent(event.getEventId(), event));
+
+        List<FeedEvent> merged = new ArrayList<>(eventsById.values());
+        merged.sort(Comparator.comparingLong(FeedEvent::getTimestamp)
+                .thenComparingInt(FeedEvent::getEventId));
+        return merged;
     }
 
 }
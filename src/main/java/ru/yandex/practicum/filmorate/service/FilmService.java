@@ -3,19 +3,38 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
+import ru.yandex.practicum.filmorate.exception.UserNotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.EventType;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmField;
+import ru.yandex.practicum.filmorate.model.FilmProjection;
+import ru.yandex.practicum.filmorate.model.FilmPatch;
 import ru.yandex.practicum.filmorate.model.OperationType;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.model.PageCursor;
 import ru.yandex.practicum.filmorate.storage.dao.LikeDao;
+import ru.yandex.practicum.filmorate.storage.film.FilmHydrationMode;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.index.DirectorFilmIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmSuggestIndex;
+import ru.yandex.practicum.filmorate.storage.index.LikeMatrix;
+import ru.yandex.practicum.filmorate.storage.index.NeighbourTable;
+import ru.yandex.practicum.filmorate.storage.index.ReviewRankingIndex;
+import ru.yandex.practicum.filmorate.storage.review.ReviewStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.util.*;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
 public class FilmService {
+    private static final int MAX_PAGE_SIZE = 1000;
+
     @Qualifier("filmDbStorage")
     private final FilmStorage filmStorage;
     @Qualifier("userDbStorage")
@@ -23,37 +42,83 @@ public class FilmService {
     private final LikeDao likeDao;
     private final EventLogger eventLogger;
     private final DirectorService directorService;
-
+    private final FilmPopularityIndex popularityIndex;
+    private final FilmSearchIndex searchIndex;
+    private final FilmSuggestIndex suggestIndex;
+    private final DirectorFilmIndex directorFilmIndex;
+    private final ReviewRankingIndex reviewRankingIndex;
+    private final LikeMatrix likeMatrix;
+    private final NeighbourTable neighbourTable;
+    @Qualifier("reviewDbStorage")
+    private final ReviewStorage reviewStorage;
 
     public Film create(Film film) {
-        return filmStorage.create(film);
+        Film created = filmStorage.create(film);
+        popularityIndex.addFilm(created);
+        searchIndex.addFilm(created);
+        suggestIndex.addFilm(created);
+        directorFilmIndex.addFilm(created);
+        return created;
     }
 
     public Film update(Film film) {
-        return filmStorage.update(film);
+        Film updated = filmStorage.update(film);
+        popularityIndex.updateFilm(updated);
+        searchIndex.updateFilm(updated);
+        suggestIndex.updateFilm(updated);
+        directorFilmIndex.updateFilm(updated);
+        return updated;
     }
 
     public Collection<Film> getAll() {
         return filmStorage.getAll();
     }
 
+    public Collection<Film> getAll(String hydration) {
+        if (hydration == null) {
+            return getAll();
+        }
+        try {
+            return filmStorage.getAll(FilmHydrationMode.valueOf(hydration.trim().toUpperCase()));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Неизвестный режим загрузки фильмов: " + hydration);
+        }
+    }
+
+    public Consumer<Consumer<Film>> streamAll() {
+        return filmStorage::streamAll;
+    }
+
     public Film getById(int id) {
         return filmStorage.getById(id);
     }
 
+    // накладывает заданные поля частичного обновления на текущее состояние фильма
+    public Film mergePatch(int id, FilmPatch patch) {
+        return patch.applyTo(filmStorage.getById(id));
+    }
+
 
     public void addLike(int filmId, int userId) {
         getFilmOrThrow(filmId);
         getUserOrThrow(userId);
-        likeDao.addLike(filmId, userId);
-        eventLogger.log(userId, EventType.LIKE, OperationType.ADD, filmId);
+        if (likeDao.addLike(filmId, userId)) {
+            popularityIndex.incrementLikes(filmId);
+            likeMatrix.addLike(userId, filmId);
+            neighbourTable.invalidate(userId);
+            eventLogger.log(userId, EventType.LIKE, OperationType.ADD, filmId);
+        }
     }
 
     public void removeLike(int filmId, int userId) {
         getFilmOrThrow(filmId);
         getUserOrThrow(userId);
-        likeDao.removeLike(filmId, userId);
-        eventLogger.log(userId, EventType.LIKE, OperationType.REMOVE, filmId);
+        if (likeDao.removeLike(filmId, userId)) {
+            popularityIndex.decrementLikes(filmId);
+            likeMatrix.removeLike(userId, filmId);
+            neighbourTable.invalidate(userId);
+            eventLogger.log(userId, EventType.LIKE, OperationType.REMOVE, filmId);
+        }
     }
 
     public List<Film> getCommonFilms(int userId, int friendId) {
@@ -74,28 +139,62 @@ public class FilmService {
         if (year != null && year < 1895) {
             throw new ValidationException("Год не может быть раньше 1895");
         }
-        return filmStorage.getPopularFilms(count, genreId, year);
+        return getByIdsOrdered(popularityIndex.getTopFilmIds(count, genreId, year));
     }
 
     private void getFilmOrThrow(int id) {
-        filmStorage.getById(id);
+        if (!filmStorage.exists(id)) {
+            throw new FilmNotFoundException("Фильм с id=" + id + " не найден");
+        }
     }
 
     private void getUserOrThrow(int id) {
-        userStorage.getById(id);
+        if (!userStorage.exists(id)) {
+            throw new UserNotFoundException("Пользователь с id=" + id + " не найден");
+        }
     }
 
     public List<Film> getFilmsByDirector(int directorId, String sortBy) {
         directorService.getById(directorId);
+        return getByIdsOrdered(directorFilmIndex.getFilmIds(directorId, sortBy));
+    }
+
+    public List<Film> searchFilms(String query, String[] by) {
+        Set<String> searchParams = new HashSet<>(Arrays.asList(by));
+        boolean searchByTitle = searchParams.contains("title");
+        boolean searchByDirector = searchParams.contains("director");
+
+        if (!searchByTitle && !searchByDirector) {
+            throw new ValidationException("Параметр 'by' должен содержать 'title' и/или 'director'");
+        }
 
-        if (sortBy.equals("year")) {
-            return filmStorage.getFilmsByDirectorSortedByYear(directorId);
-        } else {
-            return filmStorage.getFilmsByDirectorSortedByLikes(directorId);
+        // в прежнем поиске через LIKE символы % и _ работали как шаблоны, триграммный индекс ищет их буквально
+        if (query.indexOf('%') >= 0 || query.indexOf('_') >= 0) {
+            return filmStorage.searchFilms(query, searchByTitle, searchByDirector);
         }
+        return getByIdsOrdered(searchIndex.search(query, searchByTitle, searchByDirector));
     }
 
-    public List<Film> searchFilms(String query, String[] by) {
+    public List<String> suggest(String prefix, int limit) {
+        validateLimit(limit);
+        return suggestIndex.suggest(prefix, limit);
+    }
+
+    public Page<FilmProjection> getFilmsPage(String cursor, int limit, String fields) {
+        validateLimit(limit);
+        return filmStorage.getFilmsPage(PageCursor.decode(cursor), limit, parseFields(fields));
+    }
+
+    public Page<FilmProjection> getFilmsByDirectorPage(int directorId, String sortBy, String cursor, int limit,
+                                                       String fields) {
+        validateLimit(limit);
+        directorService.getById(directorId);
+        return filmStorage.getFilmsByDirectorPage(directorId, sortBy, PageCursor.decode(cursor), limit,
+                parseFields(fields));
+    }
+
+    public Page<FilmProjection> searchFilmsPage(String query, String[] by, String cursor, int limit, String fields) {
+        validateLimit(limit);
         Set<String> searchParams = new HashSet<>(Arrays.asList(by));
         boolean searchByTitle = searchParams.contains("title");
         boolean searchByDirector = searchParams.contains("director");
@@ -104,19 +203,69 @@ public class FilmService {
             throw new ValidationException("Параметр 'by' должен содержать 'title' и/или 'director'");
         }
 
-        return filmStorage.searchFilms(query, searchByTitle, searchByDirector);
+        return filmStorage.searchFilmsPage(query, searchByTitle, searchByDirector, PageCursor.decode(cursor),
+                limit, parseFields(fields));
+    }
+
+    private void validateLimit(int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Параметр limit должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+    }
+
+    // без параметра fields отдаём фильм целиком, id присутствует всегда
+    private Set<FilmField> parseFields(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return EnumSet.allOf(FilmField.class);
+        }
+        Set<FilmField> result = EnumSet.of(FilmField.ID);
+        for (String name : fields.split(",")) {
+            result.add(FilmField.fromJsonName(name.trim())
+                    .orElseThrow(() -> new ValidationException("Неизвестное поле фильма: " + name.trim())));
+        }
+        return result;
     }
 
     public void delete(int id) {
         getFilmOrThrow(id);
-        filmStorage.deleteFilm(id);
+        deleteWithIndexes(id);
     }
 
     @Deprecated
     public Film deleteAndReturn(int id) {
         Film film = filmStorage.getById(id);
-        filmStorage.deleteFilm(id);
+        deleteWithIndexes(id);
         return film;
     }
 
+    private void deleteWithIndexes(int id) {
+        List<Integer> reviewIds = reviewStorage.getIdsByFilmId(id);
+        filmStorage.deleteFilm(id);
+        popularityIndex.removeFilm(id);
+        searchIndex.removeFilm(id);
+        suggestIndex.removeFilm(id);
+        directorFilmIndex.removeFilm(id);
+        reviewRankingIndex.removeFilm(id);
+        likeMatrix.removeFilm(id);
+        reviewStorage.forgetDeleted(reviewIds);
+    }
+
+    private List<Film> getByIdsOrdered(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Integer, Film> filmsById = new HashMap<>();
+        for (Film film : filmStorage.getByIds(new HashSet<>(ids))) {
+            filmsById.put(film.getId(), film);
+        }
+        List<Film> films = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            Film film = filmsById.get(id);
+            if (film != null) {
+                films.add(film);
+            }
+        }
+        return films;
+    }
+
 }
\ No newline at end of file
@@ -2,21 +2,26 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.GenreNotFoundException;
 import ru.yandex.practicum.filmorate.model.Genre;
-import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceDataCache;
 
 import java.util.List;
 
 @Service
 @RequiredArgsConstructor
 public class GenreService {
-    private final GenreStorage genreStorage;
+    private final ReferenceDataCache referenceData;
 
     public List<Genre> getAllGenres() {
-        return genreStorage.getAll();
+        return referenceData.getGenres();
     }
 
     public Genre getGenreById(int id) {
-        return genreStorage.getById(id);
+        Genre genre = referenceData.getGenre(id);
+        if (genre == null) {
+            throw new GenreNotFoundException("Жанр с id=" + id + " не найден");
+        }
+        return genre;
     }
 }
\ No newline at end of file
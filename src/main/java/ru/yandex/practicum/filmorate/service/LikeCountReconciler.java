@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.dao.LikeDao;
+
+// Периодически сверяет films.like_count с таблицей likes
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class LikeCountReconciler {
+    private final LikeDao likeDao;
+
+    @Scheduled(fixedDelayString = "${filmorate.likes.reconcile-interval-ms:3600000}",
+            initialDelayString = "${filmorate.likes.reconcile-interval-ms:3600000}")
+    public void reconcile() {
+        int repaired = likeDao.reconcileLikeCounts();
+        if (repaired > 0) {
+            log.warn("Счётчик лайков расходился с таблицей likes у {} фильмов, исправлено", repaired);
+        }
+    }
+}
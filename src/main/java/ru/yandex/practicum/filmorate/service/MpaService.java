@@ -2,21 +2,26 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.MpaNotFoundException;
 import ru.yandex.practicum.filmorate.model.MpaRating;
-import ru.yandex.practicum.filmorate.storage.mpa.MpaStorage;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceDataCache;
 
 import java.util.List;
 
 @Service
 @RequiredArgsConstructor
 public class MpaService {
-    private final MpaStorage mpaStorage;
+    private final ReferenceDataCache referenceData;
 
     public List<MpaRating> getAllMpaRatings() {
-        return mpaStorage.getAll();
+        return referenceData.getMpaRatings();
     }
 
     public MpaRating getMpaRatingById(int id) {
-        return mpaStorage.getById(id);
+        MpaRating mpaRating = referenceData.getMpa(id);
+        if (mpaRating == null) {
+            throw new MpaNotFoundException("Рейтинг MPA с id=" + id + " не найден");
+        }
+        return mpaRating;
     }
 }
\ No newline at end of file
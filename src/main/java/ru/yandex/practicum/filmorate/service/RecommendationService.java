@@ -2,52 +2,41 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.UserNotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.storage.dao.RecommendationDao;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.index.LikeMatrix;
+import ru.yandex.practicum.filmorate.storage.index.NeighbourTable;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class RecommendationService {
-    private final RecommendationDao recommendationDao;
+    private final LikeMatrix likeMatrix;
+    private final NeighbourTable neighbourTable;
     private final FilmStorage filmStorage;
     private final UserStorage userStorage;
 
     public List<Film> getRecommendations(int userId) {
-        userStorage.getById(userId);
-
-        Map<Integer, Set<Integer>> userLikes = recommendationDao.getUserLikes();
-        Set<Integer> targetLikes = userLikes.getOrDefault(userId, Collections.emptySet());
-
-        if (targetLikes.isEmpty()) {
-            return Collections.emptyList();
+        if (!userStorage.exists(userId)) {
+            throw new UserNotFoundException("Пользователь с id=" + userId + " не найден");
         }
 
-        // найдём похожих пользователей с пересечением лайков
-        List<Integer> similarUsers = userLikes.entrySet().stream()
-                .filter(entry -> entry.getKey() != userId)
-                .map(entry -> new AbstractMap.SimpleEntry<>(entry.getKey(), overlap(targetLikes, entry.getValue())))
-                .filter(entry -> entry.getValue() > 0)
-                .sorted(Map.Entry.<Integer, Integer>comparingByValue().reversed())
-                .limit(10) // ограничение на количество похожих пользователей
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
-
-        if (similarUsers.isEmpty()) {
+        int[] targetLikes = likeMatrix.getFilmIds(userId);
+        if (targetLikes.length == 0) {
             return Collections.emptyList();
         }
 
-        // собираем рекомендации от всех похожих пользователей
-        Set<Integer> recommendedFilmIds = similarUsers.stream()
-                .map(userLikes::get)
-                .filter(Objects::nonNull)
-                .flatMap(Set::stream)
-                .filter(filmId -> !targetLikes.contains(filmId)) // исключаем уже лайкнутые
-                .collect(Collectors.toSet());
+        // соседи и кандидаты посчитаны заранее, отбрасываем только то, что пользователь успел лайкнуть с тех пор
+        NeighbourTable.Neighbourhood neighbourhood = neighbourTable.get(userId);
+        Set<Integer> recommendedFilmIds = new HashSet<>();
+        for (int filmId : neighbourhood.candidateFilmIds()) {
+            if (Arrays.binarySearch(targetLikes, filmId) < 0) {
+                recommendedFilmIds.add(filmId);
+            }
+        }
 
         if (recommendedFilmIds.isEmpty()) {
             return Collections.emptyList();
@@ -56,11 +45,4 @@ public class RecommendationService {
         // загружаем фильмы списком
         return filmStorage.getByIds(recommendedFilmIds);
     }
-
-    private int overlap(Set<Integer> a, Set<Integer> b) {
-        Set<Integer> copy = new HashSet<>(a);
-        copy.retainAll(b);
-        return copy.size();
-    }
 }
-
@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.DirectorNotFoundException;
+import ru.yandex.practicum.filmorate.exception.GenreNotFoundException;
+import ru.yandex.practicum.filmorate.exception.MpaNotFoundException;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceDataCache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+// Проверка ссылок фильмов на справочники за один проход по кэшу: собираем все отсутствующие id
+// и сообщаем о них одной ошибкой, а не падаем на первом
+@Service
+@RequiredArgsConstructor
+public class ReferenceValidator {
+    private final ReferenceDataCache referenceData;
+
+    public void validate(Film film) {
+        validateAll(List.of(film));
+    }
+
+    public void validateAll(Collection<Film> films) {
+        Set<Integer> missingMpa = new TreeSet<>();
+        Set<Integer> missingGenres = new TreeSet<>();
+        Set<Integer> missingDirectors = new TreeSet<>();
+        for (Film film : films) {
+            if (film.getMpa() != null && referenceData.getMpa(film.getMpa().getId()) == null) {
+                missingMpa.add(film.getMpa().getId());
+            }
+            if (film.getGenres() != null) {
+                for (Genre genre : film.getGenres()) {
+                    if (referenceData.getGenre(genre.getId()) == null) {
+                        missingGenres.add(genre.getId());
+                    }
+                }
+            }
+            if (film.getDirectors() != null) {
+                for (Director director : film.getDirectors()) {
+                    if (!referenceData.hasDirector(director.getId())) {
+                        missingDirectors.add(director.getId());
+                    }
+                }
+            }
+        }
+        if (missingMpa.isEmpty() && missingGenres.isEmpty() && missingDirectors.isEmpty()) {
+            return;
+        }
+
+        List<String> parts = new ArrayList<>();
+        if (!missingMpa.isEmpty()) {
+            parts.add("рейтинги MPA с id=" + missingMpa);
+        }
+        if (!missingGenres.isEmpty()) {
+            parts.add("жанры с id=" + missingGenres);
+        }
+        if (!missingDirectors.isEmpty()) {
+            parts.add("режиссеры с id=" + missingDirectors);
+        }
+        String message = "Не найдены " + String.join(", ", parts);
+        if (!missingMpa.isEmpty()) {
+            throw new MpaNotFoundException(message);
+        }
+        if (!missingGenres.isEmpty()) {
+            throw new GenreNotFoundException(message);
+        }
+        throw new DirectorNotFoundException(message);
+    }
+}
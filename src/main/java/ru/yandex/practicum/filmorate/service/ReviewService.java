@@ -3,15 +3,23 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
+import ru.yandex.practicum.filmorate.exception.ReviewNotFoundException;
+import ru.yandex.practicum.filmorate.exception.UserNotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.EventType;
 import ru.yandex.practicum.filmorate.model.OperationType;
 import ru.yandex.practicum.filmorate.model.Review;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.index.ReviewRankingIndex;
 import ru.yandex.practicum.filmorate.storage.review.ReviewStorage;
+import ru.yandex.practicum.filmorate.storage.review.UsefulChange;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -23,10 +31,12 @@ public class ReviewService {
     @Qualifier("filmDbStorage")
     private final FilmStorage filmStorage;
     private final EventLogger eventLogger;
+    private final ReviewRankingIndex rankingIndex;
 
     public Review create(Review review) {
         validateUserAndFilm(review.getUserId(), review.getFilmId());
         Review created = reviewStorage.create(review);
+        rankingIndex.addReview(created);
         eventLogger.log(created.getUserId(), EventType.REVIEW, OperationType.ADD, created.getReviewId());
         return getById(review.getReviewId());
     }
@@ -49,6 +59,7 @@ public class ReviewService {
         Review deleted = getById(id);
 
         reviewStorage.delete(id);
+        rankingIndex.removeReview(id);
 
         eventLogger.log(
                 deleted.getUserId(),
@@ -67,40 +78,70 @@ public class ReviewService {
             throw new ValidationException("Параметр count должен быть положительным числом");
         }
 
-        if (filmId != null) {
-            filmStorage.getById(filmId);
+        if (filmId != null && !filmStorage.exists(filmId)) {
+            throw new FilmNotFoundException("Фильм с id=" + filmId + " не найден");
         }
 
-        return reviewStorage.getReviewsByFilmId(filmId, count);
+        List<Integer> ids = rankingIndex.getTopReviewIds(filmId, count);
+        Map<Integer, Review> reviewsById = new HashMap<>();
+        for (Review review : reviewStorage.getByIds(ids)) {
+            reviewsById.put(review.getReviewId(), review);
+        }
+        List<Review> reviews = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            Review review = reviewsById.get(id);
+            if (review != null) {
+                reviews.add(review);
+            }
+        }
+        return reviews;
     }
 
-    public void addLike(int reviewId, int userId) {
+    public int addLike(int reviewId, int userId) {
         validateReviewAndUser(reviewId, userId);
-        reviewStorage.addLike(reviewId, userId);
+        UsefulChange change = reviewStorage.addLike(reviewId, userId);
+        rankingIndex.addUseful(reviewId, change.delta());
+        return change.useful();
     }
 
-    public void addDislike(int reviewId, int userId) {
+    public int addDislike(int reviewId, int userId) {
         validateReviewAndUser(reviewId, userId);
-        reviewStorage.addDislike(reviewId, userId);
+        UsefulChange change = reviewStorage.addDislike(reviewId, userId);
+        rankingIndex.addUseful(reviewId, change.delta());
+        return change.useful();
     }
 
-    public void removeLike(int reviewId, int userId) {
+    public int removeLike(int reviewId, int userId) {
         validateReviewAndUser(reviewId, userId);
-        reviewStorage.removeLike(reviewId, userId);
+        UsefulChange change = reviewStorage.removeLike(reviewId, userId);
+        rankingIndex.addUseful(reviewId, change.delta());
+        return change.useful();
     }
 
-    public void removeDislike(int reviewId, int userId) {
+    public int removeDislike(int reviewId, int userId) {
         validateReviewAndUser(reviewId, userId);
-        reviewStorage.removeDislike(reviewId, userId);
+        UsefulChange change = reviewStorage.removeDislike(reviewId, userId);
+        rankingIndex.addUseful(reviewId, change.delta());
+        return change.useful();
     }
 
     private void validateUserAndFilm(int userId, int filmId) {
-        userStorage.getById(userId);
-        filmStorage.getById(filmId);
+        validateUser(userId);
+        if (!filmStorage.exists(filmId)) {
+            throw new FilmNotFoundException("Фильм с id=" + filmId + " не найден");
+        }
     }
 
     private void validateReviewAndUser(int reviewId, int userId) {
-        reviewStorage.getById(reviewId);
-        userStorage.getById(userId);
+        if (!reviewStorage.exists(reviewId)) {
+            throw new ReviewNotFoundException("Отзыв с id=" + reviewId + " не найден");
+        }
+        validateUser(userId);
+    }
+
+    private void validateUser(int userId) {
+        if (!userStorage.exists(userId)) {
+            throw new UserNotFoundException("Пользователь с id=" + userId + " не найден");
+        }
     }
 }
\ No newline at end of file
@@ -3,24 +3,47 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.UserNotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.EventType;
 import ru.yandex.practicum.filmorate.model.OperationType;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.model.PageCursor;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.dao.FriendshipDao;
+import ru.yandex.practicum.filmorate.storage.dao.LikeDao;
+import ru.yandex.practicum.filmorate.storage.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.index.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.index.LikeMatrix;
+import ru.yandex.practicum.filmorate.storage.index.NeighbourTable;
+import ru.yandex.practicum.filmorate.storage.index.ReviewRankingIndex;
+import ru.yandex.practicum.filmorate.storage.review.ReviewStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
 public class UserService {
+    private static final int MAX_PAGE_SIZE = 1000;
+
     @Qualifier("userDbStorage")
     private final UserStorage userStorage;
     private final FriendshipDao friendshipDao;
     private final EventLogger eventLogger;
+    private final LikeDao likeDao;
+    private final FilmPopularityIndex popularityIndex;
+    private final LikeMatrix likeMatrix;
+    private final NeighbourTable neighbourTable;
+    private final ReviewRankingIndex reviewRankingIndex;
+    private final FriendGraph friendGraph;
+    @Qualifier("reviewDbStorage")
+    private final ReviewStorage reviewStorage;
 
     public User create(User user) {
         return userStorage.create(user);
@@ -34,6 +57,17 @@ public class UserService {
         return userStorage.getAll();
     }
 
+    public Consumer<Consumer<User>> streamAll() {
+        return userStorage::streamAll;
+    }
+
+    public Page<User> getUsersPage(String cursor, int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Параметр limit должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        return userStorage.getUsersPage(PageCursor.decode(cursor), limit);
+    }
+
     public User getById(int id) {
         return userStorage.getById(id);
     }
@@ -42,6 +76,7 @@ public class UserService {
         getUserOrThrow(userId);
         getUserOrThrow(friendId);
         friendshipDao.addFriend(userId, friendId);
+        friendGraph.addFriend(userId, friendId);
         eventLogger.log(userId, EventType.FRIEND, OperationType.ADD, friendId);
     }
 
@@ -56,6 +91,7 @@ public class UserService {
         getUserOrThrow(userId);
         getUserOrThrow(friendId);
         friendshipDao.removeFriend(userId, friendId);
+        friendGraph.removeFriend(userId, friendId);
         eventLogger.log(userId, EventType.FRIEND, OperationType.REMOVE, friendId);
     }
 
@@ -68,31 +104,67 @@ public class UserService {
         getUserOrThrow(userId);
         getUserOrThrow(otherId);
 
-        List<User> userFriends = friendshipDao.getFriends(userId);
-        List<User> otherFriends = friendshipDao.getFriends(otherId);
-
-        Set<Integer> otherFriendIds = otherFriends.stream()
-                .map(User::getId)
-                .collect(Collectors.toSet());
+        return getByIdsOrdered(friendGraph.getCommonFriendIds(userId, otherId));
+    }
 
-        return userFriends.stream()
-                .filter(user -> otherFriendIds.contains(user.getId()))
-                .collect(Collectors.toList());
+    public List<User> getFriendSuggestions(int userId, int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Параметр limit должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        getUserOrThrow(userId);
+        return getByIdsOrdered(friendGraph.suggestFriends(userId, limit));
     }
 
     private void getUserOrThrow(int id) {
-        userStorage.getById(id);
+        if (!userStorage.exists(id)) {
+            throw new UserNotFoundException("Пользователь с id=" + id + " не найден");
+        }
     }
 
     public void delete(int id) {
         getUserOrThrow(id);
-        userStorage.deleteUser(id);
+        deleteWithLikes(id);
     }
 
     @Deprecated
     public User deleteAndReturn(int id) {
         User user = userStorage.getById(id);
-        userStorage.deleteUser(id);
+        deleteWithLikes(id);
         return user;
     }
+
+    private void deleteWithLikes(int id) {
+        // лайки пользователя удаляются каскадно, поэтому счётчики фильмов поправляем вручную
+        List<Integer> likedFilmIds = likeDao.getFilmIdsByUserId(id);
+        List<Integer> reviewIds = reviewStorage.getIdsByUserId(id);
+        userStorage.deleteUser(id);
+        likedFilmIds.forEach(popularityIndex::decrementLikes);
+        likeMatrix.removeUser(id);
+        neighbourTable.invalidate(id);
+        reviewStorage.forgetDeleted(reviewIds);
+        reviewRankingIndex.removeUser(id);
+        friendGraph.removeUser(id);
+    }
+
+    private List<User> getByIdsOrdered(int[] ids) {
+        if (ids.length == 0) {
+            return new ArrayList<>();
+        }
+        List<Integer> idList = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            idList.add(id);
+        }
+        Map<Integer, User> usersById = new HashMap<>();
+        for (User user : userStorage.getUsersByIds(idList)) {
+            usersById.put(user.getId(), user);
+        }
+        List<User> users = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            User user = usersById.get(id);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,150 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Кэш собранных фильмов (с жанрами и режиссёрами) с вытеснением давно не читавшихся записей
+@Component
+@Slf4j
+public class FilmCache {
+    private final int maxSize;
+    private final Map<Integer, Film> films;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public FilmCache(@Value("${filmorate.cache.films.max-size:1000}") int maxSize) {
+        this.maxSize = maxSize;
+        this.films = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Film> eldest) {
+                if (size() > FilmCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public Film get(int id) {
+        Film film;
+        synchronized (films) {
+            film = films.get(id);
+        }
+        if (film == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return copyOf(film);
+    }
+
+    // внутри пишущей транзакции не кэшируем: прочитанные данные ещё не зафиксированы и могут откатиться
+    public void put(Film film) {
+        if (maxSize <= 0 || inWriteTransaction()) {
+            return;
+        }
+        Film copy = copyOf(film);
+        synchronized (films) {
+            films.put(copy.getId(), copy);
+        }
+    }
+
+    // повторяем вытеснение после коммита: читатель мог успеть закэшировать прежнюю версию до фиксации записи
+    public void evict(int id) {
+        removeFilm(id);
+        afterCommit(() -> removeFilm(id));
+    }
+
+    public void evictByDirector(int directorId) {
+        removeByDirector(directorId);
+        afterCommit(() -> removeByDirector(directorId));
+    }
+
+    public void clear() {
+        synchronized (films) {
+            films.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (films) {
+            return films.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.cache.films.stats-log-interval-ms:60000}")
+    // статистика нужна при разборе производительности, в обычном логе она только шумит
+    public void logStats() {
+        if (!log.isDebugEnabled()) {
+            return;
+        }
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        log.debug("Кэш фильмов: {} записей, попаданий {} из {} ({}%), вытеснено {}", size(), hitCount, total,
+                total == 0 ? 0 : hitCount * 100 / total, evictions.get());
+    }
+
+    private void removeFilm(int id) {
+        synchronized (films) {
+            films.remove(id);
+        }
+    }
+
+    private void removeByDirector(int directorId) {
+        synchronized (films) {
+            films.values().removeIf(film -> film.getDirectors() != null && film.getDirectors().stream()
+                    .anyMatch(director -> director.getId() == directorId));
+        }
+    }
+
+    private boolean inWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+
+    // фильмы изменяемые, поэтому наружу отдаём и внутри храним только копии
+    private Film copyOf(Film film) {
+        return film.toBuilder()
+                .genres(film.getGenres() != null ? new LinkedHashSet<>(film.getGenres()) : null)
+                .directors(film.getDirectors() != null ? new HashSet<>(film.getDirectors()) : new HashSet<Director>())
+                .build();
+    }
+}
@@ -0,0 +1,111 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.storage.director.DirectorStorage;
+import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaStorage;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Справочники жанров, рейтингов MPA и режиссёров в памяти. Жанры и рейтинги лежат в массивах по id,
+// и все фильмы ссылаются на одни и те же их экземпляры, поэтому изменять эти объекты нельзя.
+// Режиссёры меняются через DirectorService, карта при этом подменяется целиком.
+@Component
+@Slf4j
+public class ReferenceDataCache {
+    private final GenreStorage genreStorage;
+    private final MpaStorage mpaStorage;
+    private final DirectorStorage directorStorage;
+
+    private volatile List<Genre> genres = List.of();
+    private volatile Genre[] genresById = new Genre[0];
+    private volatile List<MpaRating> mpaRatings = List.of();
+    private volatile MpaRating[] mpaById = new MpaRating[0];
+    private volatile Map<Integer, Director> directorsById = Map.of();
+
+    public ReferenceDataCache(GenreStorage genreStorage, MpaStorage mpaStorage, DirectorStorage directorStorage) {
+        this.genreStorage = genreStorage;
+        this.mpaStorage = mpaStorage;
+        this.directorStorage = directorStorage;
+    }
+
+    @PostConstruct
+    public void load() {
+        List<Genre> loadedGenres = List.copyOf(genreStorage.getAll());
+        Genre[] genreIndex = new Genre[maxGenreId(loadedGenres) + 1];
+        loadedGenres.forEach(genre -> genreIndex[genre.getId()] = genre);
+
+        List<MpaRating> loadedMpa = List.copyOf(mpaStorage.getAll());
+        MpaRating[] mpaIndex = new MpaRating[maxMpaId(loadedMpa) + 1];
+        loadedMpa.forEach(mpa -> mpaIndex[mpa.getId()] = mpa);
+
+        Map<Integer, Director> directors = new HashMap<>();
+        directorStorage.getAll().forEach(director -> directors.put(director.getId(), director));
+
+        genres = loadedGenres;
+        genresById = genreIndex;
+        mpaRatings = loadedMpa;
+        mpaById = mpaIndex;
+        synchronized (this) {
+            directorsById = Map.copyOf(directors);
+        }
+        log.info("Справочники загружены: {} жанров, {} рейтингов MPA, {} режиссёров",
+                loadedGenres.size(), loadedMpa.size(), directors.size());
+    }
+
+    public List<Genre> getGenres() {
+        return genres;
+    }
+
+    public Genre getGenre(int id) {
+        Genre[] index = genresById;
+        return id >= 0 && id < index.length ? index[id] : null;
+    }
+
+    public List<MpaRating> getMpaRatings() {
+        return mpaRatings;
+    }
+
+    public MpaRating getMpa(int id) {
+        MpaRating[] index = mpaById;
+        return id >= 0 && id < index.length ? index[id] : null;
+    }
+
+    public boolean hasDirector(int id) {
+        return directorsById.containsKey(id);
+    }
+
+    public Director getDirector(int id) {
+        return directorsById.get(id);
+    }
+
+    public synchronized void putDirector(Director director) {
+        Map<Integer, Director> directors = new HashMap<>(directorsById);
+        directors.put(director.getId(), Director.builder()
+                .id(director.getId())
+                .name(director.getName())
+                .build());
+        directorsById = Map.copyOf(directors);
+    }
+
+    public synchronized void removeDirector(int id) {
+        Map<Integer, Director> directors = new HashMap<>(directorsById);
+        directors.remove(id);
+        directorsById = Map.copyOf(directors);
+    }
+
+    private int maxGenreId(List<Genre> values) {
+        return values.stream().mapToInt(Genre::getId).max().orElse(0);
+    }
+
+    private int maxMpaId(List<MpaRating> values) {
+        return values.stream().mapToInt(MpaRating::getId).max().orElse(0);
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.exception.DirectorNotFoundException;
 import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.storage.cache.FilmCache;
 import ru.yandex.practicum.filmorate.storage.director.DirectorStorage;
 
 import java.sql.PreparedStatement;
@@ -18,9 +19,11 @@ import java.util.Objects;
 @Repository
 public class DirectorDbStorage implements DirectorStorage {
     private final JdbcTemplate jdbcTemplate;
+    private final FilmCache filmCache;
 
-    public DirectorDbStorage(JdbcTemplate jdbcTemplate) {
+    public DirectorDbStorage(JdbcTemplate jdbcTemplate, FilmCache filmCache) {
         this.jdbcTemplate = jdbcTemplate;
+        this.filmCache = filmCache;
     }
 
     @Override
@@ -62,6 +65,7 @@ public class DirectorDbStorage implements DirectorStorage {
         if (updated == 0) {
             throw new DirectorNotFoundException("Режиссер с id=" + director.getId() + " не найден");
         }
+        filmCache.evictByDirector(director.getId());
 
         return director;
     }
@@ -74,6 +78,7 @@ public class DirectorDbStorage implements DirectorStorage {
         if (deleted == 0) {
             throw new DirectorNotFoundException("Режиссер с id=" + id + " не найден");
         }
+        filmCache.evictByDirector(id);
     }
 
     private Director mapRowToDirector(ResultSet rs, int rowNum) throws SQLException {
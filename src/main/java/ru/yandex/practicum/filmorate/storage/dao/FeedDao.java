@@ -6,12 +6,19 @@ import ru.yandex.practicum.filmorate.model.EventType;
 import ru.yandex.practicum.filmorate.model.FeedEvent;
 import ru.yandex.practicum.filmorate.model.OperationType;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Repository
 public class FeedDao {
+    private static final int STREAM_FETCH_SIZE = 500;
+    private static final String INSERT_SQL =
+            "INSERT INTO feed_events (event_id,timestamp,user_id,event_type,operation,entity_id) VALUES (?,?,?,?,?,?)";
 
     private final JdbcTemplate jdbcTemplate;
 
@@ -20,15 +27,70 @@ public class FeedDao {
     }
 
     public void addEvent(FeedEvent event) {
-        String sql = "INSERT INTO feed_events (timestamp,user_id,event_type,operation,entity_id) VALUES (?,?,?,?,?)";
-        jdbcTemplate.update(sql, event.getTimestamp(), event.getUserId(), event.getEventType().name(), event.getOperationType().name(), event.getEntityId());
+        jdbcTemplate.update(INSERT_SQL, toArgs(event));
+    }
+
+    public void addEvents(List<FeedEvent> events) {
+        List<Object[]> batchArgs = new ArrayList<>(events.size());
+        for (FeedEvent event : events) {
+            batchArgs.add(toArgs(event));
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, batchArgs);
+    }
+
+    public int getMaxEventId() {
+        Integer maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(event_id), 0) FROM feed_events", Integer.class);
+        return maxId != null ? maxId : 0;
     }
 
     public List<FeedEvent> getEventsByUserId(int userId) {
-        String sql = "SELECT * FROM feed_events WHERE user_id=? ORDER BY timestamp ASC";
+        String sql = "SELECT * FROM feed_events WHERE user_id=? ORDER BY timestamp ASC, event_id ASC";
         return jdbcTemplate.query(sql, this::mapRowToFeedEvent, userId);
     }
 
+    // постраничное чтение по id события: страница всегда возвращается по возрастанию id
+    public List<FeedEvent> getEventsPage(int userId, Integer afterId, Integer beforeId, int limit) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT * FROM feed_events WHERE user_id = ?");
+        args.add(userId);
+        if (afterId != null) {
+            sql.append(" AND event_id > ?");
+            args.add(afterId);
+        }
+        if (beforeId != null) {
+            sql.append(" AND event_id < ?");
+            args.add(beforeId);
+        }
+        // без after, но с before нужна страница, примыкающая к before, поэтому читаем с конца
+        boolean backwards = afterId == null && beforeId != null;
+        sql.append(backwards ? " ORDER BY event_id DESC" : " ORDER BY event_id ASC").append(" LIMIT ?");
+        args.add(limit);
+
+        List<FeedEvent> events = jdbcTemplate.query(sql.toString(), this::mapRowToFeedEvent, args.toArray());
+        if (backwards) {
+            Collections.reverse(events);
+        }
+        return events;
+    }
+
+    public void streamEventsByUserId(int userId, Consumer<FeedEvent> consumer) {
+        String sql = "SELECT * FROM feed_events WHERE user_id = ? ORDER BY timestamp ASC, event_id ASC";
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            ps.setInt(1, userId);
+            return ps;
+        }, rs -> {
+            consumer.accept(mapRowToFeedEvent(rs, rs.getRow()));
+        });
+    }
+
+    private Object[] toArgs(FeedEvent event) {
+        return new Object[]{event.getEventId(), event.getTimestamp(), event.getUserId(),
+                event.getEventType().name(), event.getOperationType().name(), event.getEntityId()};
+    }
+
     private FeedEvent mapRowToFeedEvent(ResultSet rs, int rowNum) throws SQLException {
         return FeedEvent.builder()
                 .eventId(rs.getInt("event_id"))
@@ -2,45 +2,82 @@ package ru.yandex.practicum.filmorate.storage.dao;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
 import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmField;
+import ru.yandex.practicum.filmorate.model.FilmProjection;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.model.PageCursor;
+import ru.yandex.practicum.filmorate.storage.cache.FilmCache;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.storage.film.FilmHydrationMode;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.index.IdRegistry;
 
+import java.sql.Array;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.LocalDate;
 import java.util.*;
-import java.util.function.Function;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Repository
 @Qualifier("filmDbStorage")
 public class FilmDbStorage implements FilmStorage {
+    private static final int STREAM_CHUNK_SIZE = 500;
+    private static final String SELECT_FILMS =
+            "SELECT f.*, m.name AS mpa_name FROM films f JOIN mpa_ratings m ON f.mpa_rating_id = m.id";
+    // жанры и режиссёры фильма собираются в массивы коррелированными подзапросами, весь фильм читается одной строкой
+    private static final String SELECT_FILMS_AGGREGATED = "SELECT f.*, m.name AS mpa_name, " +
+            "(SELECT ARRAY_AGG(ag.genre_id ORDER BY ag.genre_id) FROM film_genres ag " +
+            "WHERE ag.film_id = f.id) AS genre_ids, " +
+            "(SELECT ARRAY_AGG(ad.director_id ORDER BY ad.director_id) FROM film_directors ad " +
+            "WHERE ad.film_id = f.id) AS director_ids, " +
+            "(SELECT ARRAY_AGG(dn.name ORDER BY ad.director_id) FROM film_directors ad " +
+            "JOIN directors dn ON ad.director_id = dn.id WHERE ad.film_id = f.id) AS director_names " +
+            "FROM films f JOIN mpa_ratings m ON f.mpa_rating_id = m.id";
+
     private final JdbcTemplate jdbcTemplate;
-    private final GenreDbStorage genreDbStorage;
-    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final ReferenceDataCache referenceData;
+    private final FilmCache filmCache;
+    private final IdRegistry filmIds;
+    private final FilmHydrationMode hydrationMode;
+    // вставка компилируется один раз: метаданные таблицы читаются при первом вызове, а не при каждом
+    private final SimpleJdbcInsert filmInsert;
 
     @Autowired
-    public FilmDbStorage(JdbcTemplate jdbcTemplate, GenreDbStorage genreDbStorage, NamedParameterJdbcTemplate namedParameterJdbcTemplate) {
+    public FilmDbStorage(JdbcTemplate jdbcTemplate, ReferenceDataCache referenceData, FilmCache filmCache,
+                         @Value("${filmorate.films.hydration:SEPARATE_QUERIES}") FilmHydrationMode hydrationMode) {
         this.jdbcTemplate = jdbcTemplate;
-        this.genreDbStorage = genreDbStorage;
-        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.hydrationMode = hydrationMode;
+        this.filmInsert = new SimpleJdbcInsert(jdbcTemplate)
+                .withTableName("films")
+                .usingColumns("name", "description", "release_date", "duration", "mpa_rating_id")
+                .usingGeneratedKeyColumns("id");
+        this.referenceData = referenceData;
+        this.filmCache = filmCache;
+        this.filmIds = new IdRegistry(
+                () -> jdbcTemplate.queryForList("SELECT id FROM films", Integer.class),
+                id -> Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                        "SELECT EXISTS(SELECT 1 FROM films WHERE id = ?)", Boolean.class, id)));
     }
 
     @Override
+    @Transactional
     public Film create(Film film) {
-        SimpleJdbcInsert simpleJdbcInsert = new SimpleJdbcInsert(jdbcTemplate)
-                .withTableName("films")
-                .usingGeneratedKeyColumns("id");
-        int id = simpleJdbcInsert.executeAndReturnKey(filmToMap(film)).intValue();
+        int id = filmInsert.executeAndReturnKey(filmToMap(film)).intValue();
         film.setId(id);
 
         if (film.getGenres() != null && !film.getGenres().isEmpty()) {
@@ -51,10 +88,13 @@ public class FilmDbStorage implements FilmStorage {
             updateFilmDirectors(film);
         }
 
-        return getById(id);
+        // id регистрируем после всех вставок, чтобы откат из-за неверной связи не оставил его в реестре
+        filmIds.add(id);
+        return assembleWritten(film);
     }
 
     @Override
+    @Transactional
     public Film update(Film film) {
         String sql = "UPDATE films SET name = ?, description = ?, release_date = ?, duration = ?, mpa_rating_id = ? WHERE id = ?";
         int rowsUpdated = jdbcTemplate.update(
@@ -69,18 +109,12 @@ public class FilmDbStorage implements FilmStorage {
         if (rowsUpdated == 0) {
             throw new FilmNotFoundException("Фильм с id=" + film.getId() + " не найден");
         }
+        filmCache.evict(film.getId());
 
-        jdbcTemplate.update("DELETE FROM film_genres WHERE film_id = ?", film.getId());
-        if (film.getGenres() != null && !film.getGenres().isEmpty()) {
-            updateFilmGenres(film);
-        }
-
-        jdbcTemplate.update("DELETE FROM film_directors WHERE film_id = ?", film.getId());
-        if (film.getDirectors() != null && !film.getDirectors().isEmpty()) {
-            updateFilmDirectors(film);
-        }
+        syncLinks("film_genres", "genre_id", film.getId(), genreIds(film));
+        syncLinks("film_directors", "director_id", film.getId(), directorIds(film));
 
-        return getById(film.getId());
+        return assembleWritten(film);
     }
 
     @Override
@@ -94,195 +128,327 @@ public class FilmDbStorage implements FilmStorage {
     public void deleteFilm(int id) {
         String sql = "DELETE FROM films WHERE id = ?";
         int deleted = jdbcTemplate.update(sql, id);
+        filmCache.evict(id);
+        filmIds.remove(id);
         if (deleted == 0) {
             throw new FilmNotFoundException("Фильм с id=" + id + " не найден");
         }
     }
 
+    @Override
+    public boolean exists(int id) {
+        return filmIds.contains(id);
+    }
+
     @Override
     public Collection<Film> getAll() {
-        String sql = "SELECT f.*, m.name AS mpa_name FROM films f JOIN mpa_ratings m ON f.mpa_rating_id = m.id";
-        List<Film> films = jdbcTemplate.query(sql, this::mapRowToFilm);
+        return getAll(hydrationMode);
+    }
 
-        if (!films.isEmpty()) {
-            loadGenresForFilms(films);
-            loadDirectorsForFilms(films);
-        }
+    @Override
+    public Collection<Film> getAll(FilmHydrationMode mode) {
+        return readFilms(mode, "");
+    }
 
-        return films;
+    // жанры и режиссёры догружаются порциями, поэтому в памяти одновременно не больше одной порции фильмов
+    @Override
+    public void streamAll(Consumer<Film> consumer) {
+        List<Film> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SELECT_FILMS + " ORDER BY f.id",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_CHUNK_SIZE);
+            return ps;
+        }, rs -> {
+            chunk.add(mapRowToFilm(rs, rs.getRow()));
+            if (chunk.size() == STREAM_CHUNK_SIZE) {
+                emitChunk(chunk, consumer);
+            }
+        });
+        emitChunk(chunk, consumer);
     }
 
     @Override
     public Film getById(int id) {
-        String sql = "SELECT f.*, m.name AS mpa_name FROM films f JOIN mpa_ratings m ON f.mpa_rating_id = m.id WHERE f.id = ?";
-        try {
-            Film film = jdbcTemplate.queryForObject(sql, this::mapRowToFilm, id);
-            loadGenresForFilms(List.of(film));
-            loadDirectorsForFilms(List.of(film));
-            return film;
-        } catch (EmptyResultDataAccessException e) {
+        Film cached = filmCache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+
+        List<Film> films = readFilms("WHERE f.id = ?", id);
+        if (films.isEmpty()) {
             throw new FilmNotFoundException("Фильм с id=" + id + " не найден");
         }
+        Film film = films.get(0);
+        filmCache.put(film);
+        return film;
     }
 
     @Override
     public List<Film> getByIds(Set<Integer> ids) {
-        if (ids.isEmpty()) return List.of();
-        String sql = "SELECT f.*, m.name AS mpa_name " +
-                "FROM films f " +
-                "JOIN mpa_ratings m ON f.mpa_rating_id = m.id " +
-                "WHERE f.id IN (:ids)";
-        Map<String, Object> params = Map.of("ids", ids);
-        List<Film> films = namedParameterJdbcTemplate.query(sql, params, this::mapRowToFilm);
-
-        if (!films.isEmpty()) {
-            loadGenresForFilms(films);
-            loadDirectorsForFilms(films);
-        }
+        return getByIds(ids, hydrationMode);
+    }
 
-        return films;
+    @Override
+    public List<Film> getByIds(Set<Integer> ids, FilmHydrationMode mode) {
+        if (ids.isEmpty()) return List.of();
+        return readFilms(mode, "WHERE f.id = ANY(?)", IdArrays.bind(ids));
     }
 
     @Override
     public List<Film> getFilmsByDirectorSortedByYear(int directorId) {
-        String sql = "SELECT f.*, m.name AS mpa_name " +
-                "FROM films f " +
-                "JOIN mpa_ratings m ON f.mpa_rating_id = m.id " +
-                "JOIN film_directors fd ON f.id = fd.film_id " +
+        return readFilms("JOIN film_directors fd ON f.id = fd.film_id " +
                 "WHERE fd.director_id = ? " +
-                "ORDER BY f.release_date";
-
-        List<Film> films = jdbcTemplate.query(sql, this::mapRowToFilm, directorId);
-
-        if (!films.isEmpty()) {
-            loadGenresForFilms(films);
-            loadDirectorsForFilms(films);
-        }
-
-        return films;
+                "ORDER BY f.release_date, f.id", directorId);
     }
 
     @Override
     public List<Film> getFilmsByDirectorSortedByLikes(int directorId) {
-        String sql = "SELECT f.*, m.name AS mpa_name, COUNT(l.user_id) AS likes_count " +
-                "FROM films f " +
-                "JOIN mpa_ratings m ON f.mpa_rating_id = m.id " +
-                "JOIN film_directors fd ON f.id = fd.film_id " +
-                "LEFT JOIN likes l ON f.id = l.film_id " +
+        return readFilms("JOIN film_directors fd ON f.id = fd.film_id " +
                 "WHERE fd.director_id = ? " +
-                "GROUP BY f.id " +
-                "ORDER BY likes_count DESC";
-
-        List<Film> films = jdbcTemplate.query(sql, this::mapRowToFilm, directorId);
-
-        if (!films.isEmpty()) {
-            loadGenresForFilms(films);
-            loadDirectorsForFilms(films);
-        }
-
-        return films;
+                "ORDER BY f.like_count DESC, f.id", directorId);
     }
 
     @Override
     public List<Film> getCommonFilms(int userId, int friendId) {
-        String sql = "SELECT f.*, m.name AS mpa_name, COUNT(l.user_id) AS likes_count " +
-                "FROM films f " +
-                "JOIN mpa_ratings m ON f.mpa_rating_id = m.id " +
-                "JOIN likes l ON f.id = l.film_id " +
-                "WHERE f.id IN ( " +
+        return readFilms("WHERE f.id IN ( " +
                 "    SELECT film_id FROM likes WHERE user_id = ? " +
                 "    INTERSECT " +
                 "    SELECT film_id FROM likes WHERE user_id = ? " +
                 ") " +
-                "GROUP BY f.id, m.name " +
-                "ORDER BY likes_count DESC";
+                "ORDER BY f.like_count DESC", userId, friendId);
+    }
+
+    @Override
+    public List<Film> getPopularFilms(int count, Integer genreId, Integer year) {
+        List<Object> args = new ArrayList<>();
+        String sql = "";
+        if (genreId != null) {
+            sql += "JOIN film_genres fg ON f.id = fg.film_id AND fg.genre_id = ? ";
+            args.add(genreId);
+        }
+        if (year != null) {
+            sql += "WHERE EXTRACT(YEAR FROM f.release_date) = ? ";
+            args.add(year);
+        }
+        sql += "ORDER BY f.like_count DESC, f.id LIMIT ?";
+        args.add(count);
+        return readFilms(sql, args.toArray());
+    }
+
+    @Override
+    public List<Film> searchFilms(String query, boolean searchByTitle, boolean searchByDirector) {
+        String searchPattern = "%" + query.toLowerCase() + "%";
+        List<Object> args = new ArrayList<>();
+        List<String> conditions = new ArrayList<>();
+        if (searchByTitle) {
+            conditions.add("LOWER(f.name) LIKE ?");
+            args.add(searchPattern);
+        }
+        if (searchByDirector) {
+            conditions.add("EXISTS (SELECT 1 FROM film_directors fd JOIN directors d ON fd.director_id = d.id " +
+                    "WHERE fd.film_id = f.id AND LOWER(d.name) LIKE ?)");
+            args.add(searchPattern);
+        }
+        return readFilms("WHERE " + String.join(" OR ", conditions) + " ORDER BY f.like_count DESC",
+                args.toArray());
+    }
 
-        List<Film> films = jdbcTemplate.query(sql, this::mapRowToFilm, userId, friendId);
+    private List<Film> readFilms(FilmHydrationMode mode, String sqlTail, Object... args) {
+        return readFilms(mode, sqlTail, new ArgumentPreparedStatementSetter(args));
+    }
 
+    private List<Film> readFilms(String sqlTail, Object... args) {
+        return readFilms(hydrationMode, sqlTail, args);
+    }
+
+    // sqlTail продолжает запрос после FROM films f JOIN mpa_ratings m: соединения, условия, сортировка
+    private List<Film> readFilms(FilmHydrationMode mode, String sqlTail, PreparedStatementSetter setter) {
+        if (mode == FilmHydrationMode.ARRAY_AGG) {
+            return jdbcTemplate.query(SELECT_FILMS_AGGREGATED + " " + sqlTail, setter, this::mapRowToAggregatedFilm);
+        }
+        List<Film> films = jdbcTemplate.query(SELECT_FILMS + " " + sqlTail, setter, this::mapRowToFilm);
         if (!films.isEmpty()) {
             loadGenresForFilms(films);
             loadDirectorsForFilms(films);
         }
-
         return films;
     }
 
     @Override
-    public List<Film> getPopularFilms(int count, Integer genreId, Integer year) {
-        String sql = "SELECT f.*, m.name AS mpa_name, COUNT(l.user_id) AS likes_count " +
-                "FROM films f " +
-                "JOIN mpa_ratings m ON f.mpa_rating_id = m.id " +
-                "LEFT JOIN likes l ON f.id = l.film_id " +
-                (genreId != null ? "JOIN film_genres fg ON f.id = fg.film_id AND fg.genre_id = ? " : "") +
-                (year != null ? "WHERE EXTRACT(YEAR FROM f.release_date) = ? " : "") +
-                "GROUP BY f.id, m.name " +
-                "ORDER BY likes_count DESC " +
-                "LIMIT ?";
-
-        List<Film> films = jdbcTemplate.query(connection -> {
-            PreparedStatement ps = connection.prepareStatement(sql);
-            int paramIndex = 1;
-            if (genreId != null) {
-                ps.setInt(paramIndex++, genreId);
-            }
-            if (year != null) {
-                ps.setInt(paramIndex++, year);
-            }
-            ps.setInt(paramIndex, count);
-            return ps;
-        }, this::mapRowToFilm);
-
-        loadGenresForFilms(films);
-        loadDirectorsForFilms(films);
-        return films;
+    public Page<FilmProjection> getFilmsPage(PageCursor after, int limit, Set<FilmField> fields) {
+        List<Object> args = new ArrayList<>();
+        String sql = "SELECT " + projectionColumns(fields) + " FROM films f " + mpaJoin(fields);
+        if (after != null) {
+            sql += "WHERE f.id > ? ";
+            args.add(after.getId());
+        }
+        sql += "ORDER BY f.id LIMIT ?";
+        return readPage(sql, args, limit, fields, false);
     }
 
     @Override
-    public List<Film> searchFilms(String query, boolean searchByTitle, boolean searchByDirector) {
-        String sql = "SELECT f.*, m.name AS mpa_name, COUNT(l.user_id) AS likes_count " +
-                "FROM films f " +
-                "JOIN mpa_ratings m ON f.mpa_rating_id = m.id " +
-                "LEFT JOIN likes l ON f.id = l.film_id ";
-
-        if (searchByDirector) {
-            sql += "LEFT JOIN film_directors fd ON f.id = fd.film_id " +
-                    "LEFT JOIN directors d ON fd.director_id = d.id ";
+    public Page<FilmProjection> getFilmsByDirectorPage(int directorId, String sortBy, PageCursor after, int limit,
+                                                       Set<FilmField> fields) {
+        List<Object> args = new ArrayList<>();
+        String sql;
+        if (sortBy.equals("year")) {
+            sql = "SELECT " + projectionColumns(fields) + ", f.release_date AS sort_key " +
+                    "FROM films f " + mpaJoin(fields) +
+                    "JOIN film_directors fd ON f.id = fd.film_id " +
+                    "WHERE fd.director_id = ? ";
+            args.add(directorId);
+            if (after != null) {
+                LocalDate releaseDate = after.dateKey();
+                sql += "AND (f.release_date > ? OR (f.release_date = ? AND f.id > ?)) ";
+                args.addAll(List.of(releaseDate, releaseDate, after.getId()));
+            }
+            sql += "ORDER BY f.release_date, f.id LIMIT ?";
+        } else {
+            sql = "SELECT " + projectionColumns(fields) + ", f.like_count AS sort_key " +
+                    "FROM films f " + mpaJoin(fields) +
+                    "JOIN film_directors fd ON f.id = fd.film_id " +
+                    "WHERE fd.director_id = ? ";
+            args.add(directorId);
+            sql += likesKeysetTail(after, args);
         }
+        return readPage(sql, args, limit, fields, true);
+    }
 
-        sql += "WHERE ";
-
+    @Override
+    public Page<FilmProjection> searchFilmsPage(String query, boolean searchByTitle, boolean searchByDirector,
+                                                PageCursor after, int limit, Set<FilmField> fields) {
+        String searchPattern = "%" + query.toLowerCase() + "%";
+        List<Object> args = new ArrayList<>();
         List<String> conditions = new ArrayList<>();
         if (searchByTitle) {
-            conditions.add("LOWER(f.name) LIKE LOWER(?)");
+            conditions.add("LOWER(f.name) LIKE ?");
+            args.add(searchPattern);
         }
         if (searchByDirector) {
-            conditions.add("LOWER(d.name) LIKE LOWER(?)");
+            // подзапрос вместо соединения, чтобы фильм с несколькими режиссёрами не повторялся
+            conditions.add("EXISTS (SELECT 1 FROM film_directors fd JOIN directors d ON fd.director_id = d.id " +
+                    "WHERE fd.film_id = f.id AND LOWER(d.name) LIKE ?)");
+            args.add(searchPattern);
         }
+        String sql = "SELECT " + projectionColumns(fields) + ", f.like_count AS sort_key " +
+                "FROM films f " + mpaJoin(fields) +
+                "WHERE (" + String.join(" OR ", conditions) + ") ";
+        sql += likesKeysetTail(after, args);
+        return readPage(sql, args, limit, fields, true);
+    }
 
-        sql += String.join(" OR ", conditions);
-        sql += " GROUP BY f.id, m.name ORDER BY likes_count DESC";
+    private String likesKeysetTail(PageCursor after, List<Object> args) {
+        String tail = "";
+        if (after != null) {
+            int likes = after.intKey();
+            tail += "AND (f.like_count < ? OR (f.like_count = ? AND f.id > ?)) ";
+            args.addAll(List.of(likes, likes, after.getId()));
+        }
+        return tail + "ORDER BY f.like_count DESC, f.id LIMIT ?";
+    }
 
-        String searchPattern = "%" + query + "%";
+    private String projectionColumns(Set<FilmField> fields) {
+        List<String> columns = new ArrayList<>();
+        columns.add("f.id");
+        if (fields.contains(FilmField.NAME)) {
+            columns.add("f.name");
+        }
+        if (fields.contains(FilmField.DESCRIPTION)) {
+            columns.add("f.description");
+        }
+        if (fields.contains(FilmField.RELEASE_DATE)) {
+            columns.add("f.release_date");
+        }
+        if (fields.contains(FilmField.DURATION)) {
+            columns.add("f.duration");
+        }
+        if (fields.contains(FilmField.MPA)) {
+            columns.add("f.mpa_rating_id");
+            columns.add("m.name AS mpa_name");
+        }
+        return String.join(", ", columns);
+    }
 
-        List<Film> films = jdbcTemplate.query(sql,
-                ps -> {
-                    int index = 1;
-                    if (searchByTitle) {
-                        ps.setString(index++, searchPattern);
-                    }
-                    if (searchByDirector) {
-                        ps.setString(index, searchPattern);
-                    }
-                },
-                this::mapRowToFilm
-        );
+    private String mpaJoin(Set<FilmField> fields) {
+        return fields.contains(FilmField.MPA) ? "JOIN mpa_ratings m ON f.mpa_rating_id = m.id " : "";
+    }
 
-        if (!films.isEmpty()) {
+    // читаем на одну запись больше страницы: по ней понятно, есть ли продолжение
+    private Page<FilmProjection> readPage(String sql, List<Object> args, int limit, Set<FilmField> fields,
+                                          boolean withSortKey) {
+        args.add(limit + 1);
+        List<String> sortKeys = new ArrayList<>();
+        List<Film> films = jdbcTemplate.query(sql, (rs, rowNum) -> {
+            if (withSortKey) {
+                sortKeys.add(rs.getString("sort_key"));
+            }
+            return mapRowToProjectedFilm(rs, fields);
+        }, args.toArray());
+
+        String nextCursor = null;
+        if (films.size() > limit) {
+            films = new ArrayList<>(films.subList(0, limit));
+            String sortKey = withSortKey ? sortKeys.get(limit - 1) : null;
+            nextCursor = new PageCursor(sortKey, films.get(limit - 1).getId()).encode();
+        }
+        if (fields.contains(FilmField.GENRES)) {
             loadGenresForFilms(films);
+        }
+        if (fields.contains(FilmField.DIRECTORS)) {
             loadDirectorsForFilms(films);
         }
+        List<FilmProjection> items = new ArrayList<>(films.size());
+        films.forEach(film -> items.add(toProjection(film, fields)));
+        return new Page<>(items, nextCursor);
+    }
 
-        return films;
+    private FilmProjection toProjection(Film film, Set<FilmField> fields) {
+        FilmProjection.FilmProjectionBuilder builder = FilmProjection.builder()
+                .id(film.getId())
+                .name(film.getName())
+                .description(film.getDescription())
+                .releaseDate(film.getReleaseDate())
+                .mpa(film.getMpa())
+                .genres(film.getGenres());
+        if (fields.contains(FilmField.DURATION)) {
+            builder.duration(film.getDuration());
+        }
+        if (fields.contains(FilmField.DIRECTORS)) {
+            builder.directors(film.getDirectors());
+        }
+        return builder.build();
+    }
+
+    private Film mapRowToProjectedFilm(ResultSet rs, Set<FilmField> fields) throws SQLException {
+        Film.FilmBuilder builder = Film.builder()
+                .id(rs.getInt("id"));
+        if (fields.contains(FilmField.NAME)) {
+            builder.name(rs.getString("name"));
+        }
+        if (fields.contains(FilmField.DESCRIPTION)) {
+            builder.description(rs.getString("description"));
+        }
+        if (fields.contains(FilmField.RELEASE_DATE)) {
+            builder.releaseDate(rs.getDate("release_date").toLocalDate());
+        }
+        if (fields.contains(FilmField.DURATION)) {
+            builder.duration(rs.getInt("duration"));
+        }
+        if (fields.contains(FilmField.MPA)) {
+            builder.mpa(mapMpa(rs));
+        }
+        return builder.build();
+    }
+
+    private void emitChunk(List<Film> chunk, Consumer<Film> consumer) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        loadGenresForFilms(chunk);
+        loadDirectorsForFilms(chunk);
+        chunk.forEach(consumer);
+        chunk.clear();
     }
 
     private Map<String, Object> filmToMap(Film film) {
@@ -297,10 +463,7 @@ public class FilmDbStorage implements FilmStorage {
     }
 
     private Film mapRowToFilm(ResultSet rs, int rowNum) throws SQLException {
-        MpaRating mpa = MpaRating.builder()
-                .id(rs.getInt("mpa_rating_id"))
-                .name(rs.getString("mpa_name"))
-                .build();
+        MpaRating mpa = mapMpa(rs);
 
         return Film.builder()
                 .id(rs.getInt("id"))
@@ -314,6 +477,129 @@ public class FilmDbStorage implements FilmStorage {
                 .build();
     }
 
+    private Film mapRowToAggregatedFilm(ResultSet rs, int rowNum) throws SQLException {
+        Film film = mapRowToFilm(rs, rowNum);
+
+        Set<Genre> genres = new LinkedHashSet<>();
+        for (Object genreId : readArray(rs, "genre_ids")) {
+            Genre genre = referenceData.getGenre(((Number) genreId).intValue());
+            if (genre != null) {
+                genres.add(genre);
+            }
+        }
+        film.setGenres(genres);
+
+        Object[] directorIds = readArray(rs, "director_ids");
+        Object[] directorNames = readArray(rs, "director_names");
+        Set<Director> directors = new HashSet<>();
+        for (int i = 0; i < directorIds.length && i < directorNames.length; i++) {
+            directors.add(Director.builder()
+                    .id(((Number) directorIds[i]).intValue())
+                    .name((String) directorNames[i])
+                    .build());
+        }
+        film.setDirectors(directors);
+        return film;
+    }
+
+    // ARRAY_AGG по пустой выборке возвращает NULL
+    private Object[] readArray(ResultSet rs, String column) throws SQLException {
+        Array array = rs.getArray(column);
+        if (array == null) {
+            return new Object[0];
+        }
+        try {
+            return (Object[]) array.getArray();
+        } finally {
+            array.free();
+        }
+    }
+
+    // рейтинг берём из справочника, чтобы фильмы делили один экземпляр
+    private MpaRating mapMpa(ResultSet rs) throws SQLException {
+        int mpaId = rs.getInt("mpa_rating_id");
+        MpaRating mpa = referenceData.getMpa(mpaId);
+        if (mpa != null) {
+            return mpa;
+        }
+        return MpaRating.builder()
+                .id(mpaId)
+                .name(rs.getString("mpa_name"))
+                .build();
+    }
+
+    // связи не пересоздаются целиком: удаляем и добавляем только разницу между сохранёнными и новыми
+    private void syncLinks(String table, String column, int filmId, Set<Integer> wanted) {
+        Set<Integer> stored = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT " + column + " FROM " + table + " WHERE film_id = ?", Integer.class, filmId));
+
+        List<Object[]> toDelete = new ArrayList<>();
+        for (Integer id : stored) {
+            if (!wanted.contains(id)) {
+                toDelete.add(new Object[]{filmId, id});
+            }
+        }
+        List<Object[]> toInsert = new ArrayList<>();
+        for (Integer id : wanted) {
+            if (!stored.contains(id)) {
+                toInsert.add(new Object[]{filmId, id});
+            }
+        }
+
+        if (!toDelete.isEmpty()) {
+            jdbcTemplate.batchUpdate("DELETE FROM " + table + " WHERE film_id = ? AND " + column + " = ?", toDelete);
+        }
+        if (!toInsert.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO " + table + " (film_id, " + column + ") VALUES (?, ?)", toInsert);
+        }
+    }
+
+    private Set<Integer> genreIds(Film film) {
+        Set<Integer> ids = new TreeSet<>();
+        if (film.getGenres() != null) {
+            film.getGenres().forEach(genre -> ids.add(genre.getId()));
+        }
+        return ids;
+    }
+
+    private Set<Integer> directorIds(Film film) {
+        Set<Integer> ids = new TreeSet<>();
+        if (film.getDirectors() != null) {
+            film.getDirectors().forEach(director -> ids.add(director.getId()));
+        }
+        return ids;
+    }
+
+    // записанный фильм собираем из переданных данных и справочников без повторного чтения;
+    // если чего-то нет в справочниках, читаем фильм из базы
+    private Film assembleWritten(Film film) {
+        MpaRating mpa = referenceData.getMpa(film.getMpa().getId());
+        if (mpa == null) {
+            return getById(film.getId());
+        }
+        Set<Genre> genres = new LinkedHashSet<>();
+        for (int genreId : genreIds(film)) {
+            Genre genre = referenceData.getGenre(genreId);
+            if (genre == null) {
+                return getById(film.getId());
+            }
+            genres.add(genre);
+        }
+        Set<Director> directors = new HashSet<>();
+        for (int directorId : directorIds(film)) {
+            Director director = referenceData.getDirector(directorId);
+            if (director == null) {
+                return getById(film.getId());
+            }
+            directors.add(director);
+        }
+        return film.toBuilder()
+                .mpa(mpa)
+                .genres(genres)
+                .directors(directors)
+                .build();
+    }
+
     private void updateFilmGenres(Film film) {
         List<Object[]> batchArgs = new ArrayList<>();
         for (Genre genre : film.getGenres()) {
@@ -353,31 +639,19 @@ public class FilmDbStorage implements FilmStorage {
             return Collections.emptyMap();
         }
 
-        String inClause = filmIds.stream()
-                .map(String::valueOf)
-                .collect(Collectors.joining(","));
-
         String sql = "SELECT fg.film_id, fg.genre_id " +
                 "FROM film_genres fg " +
-                "WHERE fg.film_id IN (" + inClause + ")";
-
-        List<Map<String, Object>> rows = jdbcTemplate.queryForList(sql);
+                "WHERE fg.film_id = ANY(?)";
 
         Map<Integer, Set<Genre>> genresByFilmId = new HashMap<>();
 
-        Map<Integer, Genre> allGenres = genreDbStorage.getAll().stream()
-                .collect(Collectors.toMap(Genre::getId, Function.identity()));
-
-        for (Map<String, Object> row : rows) {
-            Integer filmId = (Integer) row.get("film_id");
-            Integer genreId = (Integer) row.get("genre_id");
-
-            Genre genre = allGenres.get(genreId);
+        jdbcTemplate.query(sql, IdArrays.bind(filmIds), rs -> {
+            Genre genre = referenceData.getGenre(rs.getInt("genre_id"));
             if (genre != null) {
-                genresByFilmId.computeIfAbsent(filmId, k -> new LinkedHashSet<>())
+                genresByFilmId.computeIfAbsent(rs.getInt("film_id"), k -> new LinkedHashSet<>())
                         .add(genre);
             }
-        }
+        });
 
         return genresByFilmId;
     }
@@ -393,14 +667,12 @@ public class FilmDbStorage implements FilmStorage {
             return;
         }
 
-        String inClause = String.join(",", Collections.nCopies(filmIds.size(), "?"));
-
         String sql = "SELECT fd.film_id, d.id, d.name " +
                 "FROM film_directors fd " +
                 "JOIN directors d ON fd.director_id = d.id " +
-                "WHERE fd.film_id IN (" + inClause + ")";
+                "WHERE fd.film_id = ANY(?)";
 
-        Map<Integer, Set<Director>> directorsByFilmId = jdbcTemplate.query(sql, rs -> {
+        Map<Integer, Set<Director>> directorsByFilmId = jdbcTemplate.query(sql, IdArrays.bind(filmIds), rs -> {
             Map<Integer, Set<Director>> result = new HashMap<>();
             while (rs.next()) {
                 int filmId = rs.getInt("film_id");
@@ -411,7 +683,7 @@ public class FilmDbStorage implements FilmStorage {
                 result.computeIfAbsent(filmId, k -> new HashSet<>()).add(director);
             }
             return result;
-        }, filmIds.toArray());
+        });
 
         films.forEach(film -> {
             Set<Director> directors = directorsByFilmId.get(film.getId());
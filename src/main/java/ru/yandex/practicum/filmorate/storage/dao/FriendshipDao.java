@@ -47,4 +47,16 @@ public class FriendshipDao {
 
         return jdbcTemplate.query(sql, userRowMapper, userId);
     }
-}
\ No newline at end of file
+
+    public void forEachFriendship(FriendshipConsumer consumer) {
+        String sql = "SELECT user_id, friend_id FROM friendships";
+        jdbcTemplate.query(sql, rs -> {
+            consumer.accept(rs.getInt("user_id"), rs.getInt("friend_id"));
+        });
+    }
+
+    @FunctionalInterface
+    public interface FriendshipConsumer {
+        void accept(int userId, int friendId);
+    }
+}
@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.storage.dao;
+
+import org.springframework.jdbc.core.PreparedStatementSetter;
+
+import java.util.Collection;
+
+// Список id для условия "= ANY(?)" передаётся одним параметром-массивом: текст запроса не зависит
+// от числа id, поэтому H2 разбирает и планирует его один раз, а длинные списки не раздувают SQL
+final class IdArrays {
+    private IdArrays() {
+    }
+
+    static PreparedStatementSetter bind(Collection<Integer> ids) {
+        Object[] values = ids.toArray();
+        return ps -> ps.setArray(1, ps.getConnection().createArrayOf("INTEGER", values));
+    }
+}
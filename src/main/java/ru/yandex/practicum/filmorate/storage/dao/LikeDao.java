@@ -1,8 +1,14 @@
 package ru.yandex.practicum.filmorate.storage.dao;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Repository
 @Slf4j
@@ -13,22 +19,58 @@ public class LikeDao {
         this.jdbcTemplate = jdbcTemplate;
     }
 
-    public void addLike(int filmId, int userId) {
-        String checkSql = "SELECT COUNT(*) FROM likes WHERE film_id = ? AND user_id = ?";
-        Integer count = jdbcTemplate.queryForObject(checkSql, Integer.class, filmId, userId);
+    // счётчик films.like_count меняется в той же транзакции, что и сама запись лайка
+    @Transactional
+    public boolean addLike(int filmId, int userId) {
+        // одна атомарная вставка: при существующем лайке MERGE ничего не меняет и возвращает 0
+        String sql = "MERGE INTO likes l " +
+                "USING (VALUES (CAST(? AS INTEGER), CAST(? AS INTEGER))) AS s(film_id, user_id) " +
+                "ON l.film_id = s.film_id AND l.user_id = s.user_id " +
+                "WHEN NOT MATCHED THEN INSERT (film_id, user_id) VALUES (s.film_id, s.user_id)";
+        try {
+            if (jdbcTemplate.update(sql, filmId, userId) > 0) {
+                jdbcTemplate.update("UPDATE films SET like_count = like_count + 1 WHERE id = ?", filmId);
+                return true;
+            }
+        } catch (DuplicateKeyException e) {
+            // ту же пару успел вставить параллельный запрос
+            log.debug("Параллельная вставка лайка пользователя {} к фильму {}", userId, filmId);
+        }
+        log.info("Лайк пользователя {} к фильму {} уже существует", userId, filmId);
+        return false;
+    }
 
-        if (count != null && count > 0) {
-            log.info("Лайк пользователя {} к фильму {} уже существует", userId, filmId);
-            return;
+    @Transactional
+    public boolean removeLike(int filmId, int userId) {
+        String sql = "DELETE FROM likes WHERE film_id = ? AND user_id = ?";
+        if (jdbcTemplate.update(sql, filmId, userId) == 0) {
+            return false;
         }
+        jdbcTemplate.update("UPDATE films SET like_count = like_count - 1 WHERE id = ?", filmId);
+        return true;
+    }
 
-        String insertSql = "INSERT INTO likes (film_id, user_id) VALUES (?, ?)";
-        jdbcTemplate.update(insertSql, filmId, userId);
+    // лайки, удалённые каскадом или вставленные в обход этого класса, сдвигают счётчик;
+    // возвращает число исправленных фильмов
+    public int reconcileLikeCounts() {
+        String sql = "UPDATE films f SET like_count = " +
+                "(SELECT COUNT(*) FROM likes l WHERE l.film_id = f.id) " +
+                "WHERE like_count <> (SELECT COUNT(*) FROM likes l WHERE l.film_id = f.id)";
+        return jdbcTemplate.update(sql);
     }
 
-    public void removeLike(int filmId, int userId) {
-        String sql = "DELETE FROM likes WHERE film_id = ? AND user_id = ?";
-        jdbcTemplate.update(sql, filmId, userId);
+    public Map<Integer, Integer> getLikeCounts() {
+        String sql = "SELECT film_id, COUNT(user_id) AS likes_count FROM likes GROUP BY film_id";
+        Map<Integer, Integer> counts = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            counts.put(rs.getInt("film_id"), rs.getInt("likes_count"));
+        });
+        return counts;
+    }
+
+    public List<Integer> getFilmIdsByUserId(int userId) {
+        String sql = "SELECT film_id FROM likes WHERE user_id = ?";
+        return jdbcTemplate.queryForList(sql, Integer.class, userId);
     }
 
-}
\ No newline at end of file
+}
@@ -1,36 +1,53 @@
 package ru.yandex.practicum.filmorate.storage.dao;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.ReviewNotFoundException;
 import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.storage.index.IdRegistry;
 import ru.yandex.practicum.filmorate.storage.review.ReviewStorage;
+import ru.yandex.practicum.filmorate.storage.review.UsefulChange;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 @Repository
+@Slf4j
 public class ReviewDbStorage implements ReviewStorage {
     private final JdbcTemplate jdbcTemplate;
+    private final IdRegistry reviewIds;
+    private final ReviewUsefulBuffer usefulBuffer;
+    private final SimpleJdbcInsert reviewInsert;
 
     @Autowired
-    public ReviewDbStorage(JdbcTemplate jdbcTemplate) {
+    public ReviewDbStorage(JdbcTemplate jdbcTemplate, ReviewUsefulBuffer usefulBuffer) {
         this.jdbcTemplate = jdbcTemplate;
+        this.reviewInsert = new SimpleJdbcInsert(jdbcTemplate)
+                .withTableName("reviews")
+                .usingColumns("content", "is_positive", "user_id", "film_id", "useful")
+                .usingGeneratedKeyColumns("review_id");
+        this.usefulBuffer = usefulBuffer;
+        this.reviewIds = new IdRegistry(
+                () -> jdbcTemplate.queryForList("SELECT review_id FROM reviews", Integer.class),
+                id -> Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                        "SELECT EXISTS(SELECT 1 FROM reviews WHERE review_id = ?)", Boolean.class, id)));
     }
 
     @Override
     public Review create(Review review) {
-        SimpleJdbcInsert simpleJdbcInsert = new SimpleJdbcInsert(jdbcTemplate)
-                .withTableName("reviews")
-                .usingGeneratedKeyColumns("review_id");
-
-        int reviewId = simpleJdbcInsert.executeAndReturnKey(reviewToMap(review)).intValue();
+        int reviewId = reviewInsert.executeAndReturnKey(reviewToMap(review)).intValue();
         review.setReviewId(reviewId);
         review.setUseful(0);
+        reviewIds.add(reviewId);
         return review;
     }
 
@@ -49,9 +66,32 @@ public class ReviewDbStorage implements ReviewStorage {
         Review review = getById(id);
         String sql = "DELETE FROM reviews WHERE review_id = ?";
         jdbcTemplate.update(sql, id);
+        reviewIds.remove(id);
+        usefulBuffer.remove(id);
         return review;
     }
 
+    @Override
+    public boolean exists(int id) {
+        return reviewIds.contains(id);
+    }
+
+    @Override
+    public List<Integer> getIdsByFilmId(int filmId) {
+        return jdbcTemplate.queryForList("SELECT review_id FROM reviews WHERE film_id = ?", Integer.class, filmId);
+    }
+
+    @Override
+    public List<Integer> getIdsByUserId(int userId) {
+        return jdbcTemplate.queryForList("SELECT review_id FROM reviews WHERE user_id = ?", Integer.class, userId);
+    }
+
+    @Override
+    public void forgetDeleted(Collection<Integer> ids) {
+        reviewIds.removeAll(ids);
+        ids.forEach(usefulBuffer::remove);
+    }
+
     @Override
     public Review getById(int id) {
         String sql = "SELECT * FROM reviews WHERE review_id = ?";
@@ -62,8 +102,19 @@ public class ReviewDbStorage implements ReviewStorage {
         }
     }
 
+    @Override
+    public List<Review> getByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String sql = "SELECT * FROM reviews WHERE review_id = ANY(?)";
+        return jdbcTemplate.query(sql, IdArrays.bind(ids), this::mapRowToReview);
+    }
+
     @Override
     public List<Review> getReviewsByFilmId(Integer filmId, int count) {
+        // сортировка идёт по столбцу useful, поэтому отложенные голоса сначала переносятся в таблицу
+        usefulBuffer.flush();
         String sql;
         if (filmId == null) {
             sql = "SELECT * FROM reviews ORDER BY useful DESC LIMIT ?";
@@ -74,74 +125,94 @@ public class ReviewDbStorage implements ReviewStorage {
         }
     }
 
+    // каждая смена голоса — одна условная запись строки review_likes: из двух одновременных
+    // одинаковых голосов изменит строку только один, поэтому useful не посчитается дважды
     @Override
-    public void addLike(int reviewId, int userId) {
-        Boolean current = getCurrentLikeStatus(reviewId, userId);
-        int delta;
+    @Transactional
+    public UsefulChange addLike(int reviewId, int userId) {
+        return vote(reviewId, userId, true);
+    }
 
-        if (current == null) {
-            jdbcTemplate.update(
-                    "INSERT INTO review_likes (review_id, user_id, is_like) VALUES (?, ?, true)",
-                    reviewId, userId
-            );
-            delta = 1;
-        } else if (current) {
-            return;
-        } else {
-            jdbcTemplate.update(
-                    "UPDATE review_likes SET is_like = true WHERE review_id = ? AND user_id = ?",
-                    reviewId, userId
-            );
-            delta = 2;
-        }
-        updateReviewUseful(reviewId, delta);
+    @Override
+    @Transactional
+    public UsefulChange addDislike(int reviewId, int userId) {
+        return vote(reviewId, userId, false);
     }
 
     @Override
-    public void addDislike(int reviewId, int userId) {
-        Boolean current = getCurrentLikeStatus(reviewId, userId);
-        int delta;
+    @Transactional
+    public UsefulChange removeLike(int reviewId, int userId) {
+        return unvote(reviewId, userId, true);
+    }
 
-        if (current == null) {
-            jdbcTemplate.update(
-                    "INSERT INTO review_likes (review_id, user_id, is_like) VALUES (?, ?, false)",
-                    reviewId, userId
-            );
-            delta = -1;
-        } else if (!current) {
-            return;
+    @Override
+    @Transactional
+    public UsefulChange removeDislike(int reviewId, int userId) {
+        return unvote(reviewId, userId, false);
+    }
+
+    // смена голоса и новый голос — один MERGE: по прежнему значению is_like из OLD TABLE видно,
+    // была ли строка (для новой строки OLD TABLE пуст) и на сколько изменилась полезность
+    private UsefulChange vote(int reviewId, int userId, boolean isLike) {
+        int sign = isLike ? 1 : -1;
+        List<Boolean> previous;
+        try {
+            previous = mergeVote(reviewId, userId, isLike);
+        } catch (DuplicateKeyException e) {
+            // ту же пару успел вставить параллельный запрос, возможно с противоположным голосом:
+            // повторный MERGE пойдёт по ветке MATCHED и вернёт настоящее прежнее значение
+            log.debug("Параллельный голос пользователя {} за отзыв {}, повторяем", userId, reviewId);
+            previous = mergeVote(reviewId, userId, isLike);
+        }
+        int delta;
+        if (previous.isEmpty()) {
+            delta = sign;
         } else {
-            jdbcTemplate.update(
-                    "UPDATE review_likes SET is_like = false WHERE review_id = ? AND user_id = ?",
-                    reviewId, userId
-            );
-            delta = -2;
+            delta = previous.get(0) == isLike ? 0 : 2 * sign;
         }
-        updateReviewUseful(reviewId, delta);
+        return applyUseful(reviewId, delta);
     }
 
-    @Override
-    public void removeLike(int reviewId, int userId) {
-        Boolean current = getCurrentLikeStatus(reviewId, userId);
-        if (current != null && current) {
-            jdbcTemplate.update(
-                    "DELETE FROM review_likes WHERE review_id = ? AND user_id = ?",
-                    reviewId, userId
-            );
-            updateReviewUseful(reviewId, -1);
-        }
+    private List<Boolean> mergeVote(int reviewId, int userId, boolean isLike) {
+        String sql = "SELECT is_like FROM OLD TABLE (MERGE INTO review_likes rl " +
+                "USING (VALUES (CAST(? AS INTEGER), CAST(? AS INTEGER), CAST(? AS BOOLEAN))) " +
+                "AS s(review_id, user_id, is_like) " +
+                "ON rl.review_id = s.review_id AND rl.user_id = s.user_id " +
+                "WHEN MATCHED THEN UPDATE SET is_like = s.is_like " +
+                "WHEN NOT MATCHED THEN INSERT (review_id, user_id, is_like) " +
+                "VALUES (s.review_id, s.user_id, s.is_like))";
+        return jdbcTemplate.queryForList(sql, Boolean.class, reviewId, userId, isLike);
     }
 
-    @Override
-    public void removeDislike(int reviewId, int userId) {
-        Boolean current = getCurrentLikeStatus(reviewId, userId);
-        if (current != null && !current) {
-            jdbcTemplate.update(
-                    "DELETE FROM review_likes WHERE review_id = ? AND user_id = ?",
-                    reviewId, userId
-            );
-            updateReviewUseful(reviewId, 1);
+    private UsefulChange unvote(int reviewId, int userId, boolean isLike) {
+        int deleted = jdbcTemplate.update(
+                "DELETE FROM review_likes WHERE review_id = ? AND user_id = ? AND is_like = ?",
+                reviewId, userId, isLike
+        );
+        return applyUseful(reviewId, deleted > 0 ? (isLike ? -1 : 1) : 0);
+    }
+
+    private UsefulChange applyUseful(int reviewId, int delta) {
+        return new UsefulChange(delta, writeUseful(reviewId, delta));
+    }
+
+    // возвращает новое значение useful тем же запросом, которым оно изменено
+    private int writeUseful(int reviewId, int delta) {
+        if (usefulBuffer.isEnabled()) {
+            if (delta != 0) {
+                usefulBuffer.add(reviewId, delta);
+            }
+            return jdbcTemplate.queryForObject(
+                    "SELECT useful FROM reviews WHERE review_id = ?", Integer.class, reviewId)
+                    + usefulBuffer.getPending(reviewId);
         }
+        if (delta == 0) {
+            return jdbcTemplate.queryForObject(
+                    "SELECT useful FROM reviews WHERE review_id = ?", Integer.class, reviewId);
+        }
+        return jdbcTemplate.queryForObject(
+                "SELECT useful FROM FINAL TABLE (UPDATE reviews SET useful = useful + ? WHERE review_id = ?)",
+                Integer.class, delta, reviewId);
     }
 
     private Map<String, Object> reviewToMap(Review review) {
@@ -161,23 +232,7 @@ public class ReviewDbStorage implements ReviewStorage {
                 .isPositive(rs.getBoolean("is_positive"))
                 .userId(rs.getInt("user_id"))
                 .filmId(rs.getInt("film_id"))
-                .useful(rs.getInt("useful"))
+                .useful(rs.getInt("useful") + usefulBuffer.getPending(rs.getInt("review_id")))
                 .build();
     }
-
-    private void updateReviewUseful(int reviewId, int delta) {
-        jdbcTemplate.update(
-                "UPDATE reviews SET useful = useful + ? WHERE review_id = ?",
-                delta, reviewId
-        );
-    }
-
-    private Boolean getCurrentLikeStatus(int reviewId, int userId) {
-        String sql = "SELECT is_like FROM review_likes WHERE review_id = ? AND user_id = ?";
-        try {
-            return jdbcTemplate.queryForObject(sql, Boolean.class, reviewId, userId);
-        } catch (Exception e) {
-            return null;
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,128 @@
+package ru.yandex.practicum.filmorate.storage.dao;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Необязательный режим отложенной записи reviews.useful: изменения копятся в LongAdder по отзывам
+// и пакетом переносятся в БД, так что голоса за популярный отзыв не ждут блокировку его строки.
+// Сами голоса в review_likes по-прежнему пишутся сразу.
+@Component
+@Slf4j
+public class ReviewUsefulBuffer {
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final long flushIntervalMs;
+    private ScheduledExecutorService flusher;
+    // счётчики не удаляются при сбросе: иначе голос, пришедший во время удаления, попал бы в потерянный счётчик
+    private final Map<Integer, LongAdder> pending = new ConcurrentHashMap<>();
+
+    public ReviewUsefulBuffer(JdbcTemplate jdbcTemplate,
+                              @Value("${filmorate.reviews.buffered-useful:false}") boolean enabled,
+                              @Value("${filmorate.reviews.flush-interval-ms:500}") long flushIntervalMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    // периодическая запись запускается только во включённом режиме
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "review-useful-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void add(int reviewId, long delta) {
+        pending.computeIfAbsent(reviewId, k -> new LongAdder()).add(delta);
+    }
+
+    public int getPending(int reviewId) {
+        LongAdder adder = pending.get(reviewId);
+        return adder != null ? (int) adder.sum() : 0;
+    }
+
+    public void remove(int reviewId) {
+        pending.remove(reviewId);
+    }
+
+    // накопленное значение списывается из счётчика только после записи в БД: пока UPDATE выполняется,
+    // читатели видят дельту в буфере, а не теряют её между буфером и таблицей
+    public synchronized void flush() {
+        if (!enabled || pending.isEmpty()) {
+            return;
+        }
+        List<Integer> reviewIds = new ArrayList<>();
+        List<Object[]> batchArgs = new ArrayList<>();
+        pending.forEach((reviewId, adder) -> {
+            long delta = adder.sum();
+            if (delta != 0) {
+                reviewIds.add(reviewId);
+                batchArgs.add(new Object[]{delta, reviewId});
+            }
+        });
+        if (batchArgs.isEmpty()) {
+            return;
+        }
+
+        int[] updated;
+        try {
+            updated = jdbcTemplate.batchUpdate(
+                    "UPDATE reviews SET useful = useful + ? WHERE review_id = ?", batchArgs);
+        } catch (DataAccessException e) {
+            log.warn("Не удалось записать полезность {} отзывов, повторим позже: {}", batchArgs.size(), e.getMessage());
+            return;
+        }
+        for (int i = 0; i < updated.length; i++) {
+            int reviewId = reviewIds.get(i);
+            if (updated[i] == 0) {
+                // отзыв удалён каскадно вместе с фильмом или автором
+                pending.remove(reviewId);
+                continue;
+            }
+            LongAdder adder = pending.get(reviewId);
+            if (adder != null) {
+                adder.add(-(Long) batchArgs.get(i)[0]);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        flush();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Не удалось записать полезность отзывов", e);
+        }
+    }
+}
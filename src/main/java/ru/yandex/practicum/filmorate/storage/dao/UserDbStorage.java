@@ -6,35 +6,50 @@ import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.UserNotFoundException;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.model.PageCursor;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.index.IdRegistry;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 @Repository
 @Qualifier("userDbStorage")
 public class UserDbStorage implements UserStorage {
+    private static final int STREAM_FETCH_SIZE = 500;
+
     private final JdbcTemplate jdbcTemplate;
+    private final IdRegistry userIds;
+    private final SimpleJdbcInsert userInsert;
 
     @Autowired
     public UserDbStorage(JdbcTemplate jdbcTemplate) {
         this.jdbcTemplate = jdbcTemplate;
+        this.userInsert = new SimpleJdbcInsert(jdbcTemplate)
+                .withTableName("users")
+                .usingColumns("email", "login", "name", "birthday")
+                .usingGeneratedKeyColumns("id");
+        this.userIds = new IdRegistry(
+                () -> jdbcTemplate.queryForList("SELECT id FROM users", Integer.class),
+                id -> Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                        "SELECT EXISTS(SELECT 1 FROM users WHERE id = ?)", Boolean.class, id)));
     }
 
     @Override
     public User create(User user) {
-        SimpleJdbcInsert simpleJdbcInsert = new SimpleJdbcInsert(jdbcTemplate)
-                .withTableName("users")
-                .usingGeneratedKeyColumns("id");
-        int id = simpleJdbcInsert.executeAndReturnKey(userToMap(user)).intValue();
+        int id = userInsert.executeAndReturnKey(userToMap(user)).intValue();
         user.setId(id);
+        userIds.add(id);
         return user;
     }
 
@@ -63,20 +78,42 @@ public class UserDbStorage implements UserStorage {
     }
 
     @Override
+    @Transactional
     public void deleteUser(int id) {
+        // лайки пользователя удалятся каскадно, счётчики фильмов уменьшаем заранее
+        jdbcTemplate.update("UPDATE films SET like_count = like_count - 1 " +
+                "WHERE id IN (SELECT film_id FROM likes WHERE user_id = ?)", id);
         String sql = "DELETE FROM users WHERE id = ?";
         int deleted = jdbcTemplate.update(sql, id);
+        userIds.remove(id);
         if (deleted == 0) {
             throw new UserNotFoundException("Пользователь с id=" + id + " не найден");
         }
     }
 
+    @Override
+    public boolean exists(int id) {
+        return userIds.contains(id);
+    }
+
     @Override
     public Collection<User> getAll() {
         String sql = "SELECT * FROM users";
         return jdbcTemplate.query(sql, this::mapRowToUser);
     }
 
+    @Override
+    public void streamAll(Consumer<User> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement("SELECT * FROM users ORDER BY id",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            return ps;
+        }, rs -> {
+            consumer.accept(mapRowToUser(rs, rs.getRow()));
+        });
+    }
+
     @Override
     public User getById(int id) {
         String sql = "SELECT * FROM users WHERE id = ?";
@@ -93,11 +130,20 @@ public class UserDbStorage implements UserStorage {
             return Collections.emptyList();
         }
 
-        String sql = "SELECT * FROM users WHERE id IN (" +
-                ids.stream().map(String::valueOf).collect(Collectors.joining(",")) +
-                ")";
+        String sql = "SELECT * FROM users WHERE id = ANY(?)";
+        return jdbcTemplate.query(sql, IdArrays.bind(ids), this::mapRowToUser);
+    }
 
-        return jdbcTemplate.query(sql, this::mapRowToUser);
+    @Override
+    public Page<User> getUsersPage(PageCursor after, int limit) {
+        int afterId = after != null ? after.getId() : 0;
+        String sql = "SELECT * FROM users WHERE id > ? ORDER BY id LIMIT ?";
+        List<User> users = jdbcTemplate.query(sql, this::mapRowToUser, afterId, limit + 1);
+        if (users.size() <= limit) {
+            return new Page<>(users, null);
+        }
+        List<User> page = users.subList(0, limit);
+        return new Page<>(page, new PageCursor(null, page.get(limit - 1).getId()).encode());
     }
 
     private Map<String, Object> userToMap(User user) {
@@ -0,0 +1,8 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+// Как к фильмам догружаются жанры и режиссёры: отдельными запросами на всю выборку
+// или подзапросами ARRAY_AGG в том же запросе
+public enum FilmHydrationMode {
+    SEPARATE_QUERIES,
+    ARRAY_AGG
+}
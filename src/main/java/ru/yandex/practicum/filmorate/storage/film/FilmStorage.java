@@ -1,10 +1,15 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmField;
+import ru.yandex.practicum.filmorate.model.FilmProjection;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.model.PageCursor;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 public interface FilmStorage {
 
@@ -16,12 +21,21 @@ public interface FilmStorage {
 
     void deleteFilm(int id);
 
+    boolean exists(int id);
+
     Collection<Film> getAll();
 
+    // способ догрузки жанров и режиссёров можно выбрать для отдельного запроса, по умолчанию берётся из настроек
+    Collection<Film> getAll(FilmHydrationMode mode);
+
+    void streamAll(Consumer<Film> consumer);
+
     Film getById(int id);
 
     public List<Film> getByIds(Set<Integer> ids);
 
+    List<Film> getByIds(Set<Integer> ids, FilmHydrationMode mode);
+
     List<Film> getFilmsByDirectorSortedByYear(int directorId);
 
     List<Film> getFilmsByDirectorSortedByLikes(int directorId);
@@ -30,5 +44,15 @@ public interface FilmStorage {
 
     List<Film> getCommonFilms(int userId, int friendId);
 
+    // запасной поиск через LIKE для запросов с шаблонными символами % и _
     List<Film> searchFilms(String query, boolean searchByTitle, boolean searchByDirector);
+
+    // постраничные выборки с курсором; незапрошенные поля фильма остаются пустыми и не загружаются
+    Page<FilmProjection> getFilmsPage(PageCursor after, int limit, Set<FilmField> fields);
+
+    Page<FilmProjection> getFilmsByDirectorPage(int directorId, String sortBy, PageCursor after, int limit,
+                                                Set<FilmField> fields);
+
+    Page<FilmProjection> searchFilmsPage(String query, boolean searchByTitle, boolean searchByDirector,
+                                         PageCursor after, int limit, Set<FilmField> fields);
 }
\ No newline at end of file
@@ -0,0 +1,182 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Фильмы каждого режиссёра, заранее отсортированные по году выхода и по лайкам
+@Component
+@Slf4j
+public class DirectorFilmIndex {
+    private static final Comparator<Entry> BY_RELEASE_DATE = Comparator.comparing(Entry::releaseDate)
+            .thenComparingInt(Entry::filmId);
+    private static final Comparator<Entry> BY_LIKES_DESC = Comparator.comparingInt(Entry::likes).reversed()
+            .thenComparingInt(Entry::filmId);
+
+    private final FilmPopularityIndex popularityIndex;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, FilmInfo> infoByFilmId = new HashMap<>();
+    private final Map<Integer, NavigableSet<Entry>> byYear = new HashMap<>();
+    private final Map<Integer, NavigableSet<Entry>> byLikes = new HashMap<>();
+
+    public DirectorFilmIndex(FilmPopularityIndex popularityIndex) {
+        this.popularityIndex = popularityIndex;
+    }
+
+    public void load(Collection<Film> films) {
+        lock.writeLock().lock();
+        try {
+            infoByFilmId.clear();
+            byYear.clear();
+            byLikes.clear();
+            for (Film film : films) {
+                index(new FilmInfo(film.getId(), film.getReleaseDate(), popularityIndex.getLikes(film.getId()),
+                        directorIds(film)));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        popularityIndex.addListener(this::likesChanged);
+        log.info("Индекс фильмов по режиссёрам загружен: {} режиссёров", byYear.size());
+    }
+
+    public void addFilm(Film film) {
+        lock.writeLock().lock();
+        try {
+            FilmInfo previous = infoByFilmId.get(film.getId());
+            if (previous != null) {
+                unindex(previous);
+            }
+            index(new FilmInfo(film.getId(), film.getReleaseDate(), popularityIndex.getLikes(film.getId()),
+                    directorIds(film)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void updateFilm(Film film) {
+        addFilm(film);
+    }
+
+    public void removeFilm(int filmId) {
+        lock.writeLock().lock();
+        try {
+            FilmInfo info = infoByFilmId.get(filmId);
+            if (info != null) {
+                unindex(info);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // связи с фильмами удаляются в БД каскадно, у фильмов режиссёр тоже пропадает
+    public void removeDirector(int directorId) {
+        lock.writeLock().lock();
+        try {
+            NavigableSet<Entry> entries = byYear.remove(directorId);
+            byLikes.remove(directorId);
+            if (entries == null) {
+                return;
+            }
+            for (Entry entry : entries) {
+                FilmInfo info = infoByFilmId.get(entry.filmId());
+                if (info != null) {
+                    Set<Integer> directorIds = new HashSet<>(info.directorIds());
+                    directorIds.remove(directorId);
+                    infoByFilmId.put(info.filmId(), new FilmInfo(info.filmId(), info.releaseDate(), info.likes(),
+                            directorIds));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Integer> getFilmIds(int directorId, String sortBy) {
+        lock.readLock().lock();
+        try {
+            Map<Integer, NavigableSet<Entry>> view = sortBy.equals("year") ? byYear : byLikes;
+            NavigableSet<Entry> entries = view.getOrDefault(directorId, Collections.emptyNavigableSet());
+            List<Integer> result = new ArrayList<>(entries.size());
+            for (Entry entry : entries) {
+                result.add(entry.filmId());
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void likesChanged(int filmId) {
+        lock.writeLock().lock();
+        try {
+            FilmInfo info = infoByFilmId.get(filmId);
+            if (info == null || info.directorIds().isEmpty()) {
+                return;
+            }
+            int likes = popularityIndex.getLikes(filmId);
+            if (likes == info.likes()) {
+                return;
+            }
+            unindex(info);
+            index(new FilmInfo(filmId, info.releaseDate(), likes, info.directorIds()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(FilmInfo info) {
+        infoByFilmId.put(info.filmId(), info);
+        Entry entry = info.entry();
+        for (int directorId : info.directorIds()) {
+            byYear.computeIfAbsent(directorId, k -> new TreeSet<>(BY_RELEASE_DATE)).add(entry);
+            byLikes.computeIfAbsent(directorId, k -> new TreeSet<>(BY_LIKES_DESC)).add(entry);
+        }
+    }
+
+    private void unindex(FilmInfo info) {
+        infoByFilmId.remove(info.filmId());
+        Entry entry = info.entry();
+        for (int directorId : info.directorIds()) {
+            removeFrom(byYear, directorId, entry);
+            removeFrom(byLikes, directorId, entry);
+        }
+    }
+
+    private void removeFrom(Map<Integer, NavigableSet<Entry>> view, int directorId, Entry entry) {
+        NavigableSet<Entry> entries = view.get(directorId);
+        if (entries != null) {
+            entries.remove(entry);
+            if (entries.isEmpty()) {
+                view.remove(directorId);
+            }
+        }
+    }
+
+    private Set<Integer> directorIds(Film film) {
+        Set<Integer> result = new HashSet<>();
+        if (film.getDirectors() != null) {
+            for (Director director : film.getDirectors()) {
+                result.add(director.getId());
+            }
+        }
+        return result;
+    }
+
+    private record Entry(int filmId, LocalDate releaseDate, int likes) {
+    }
+
+    private record FilmInfo(int filmId, LocalDate releaseDate, int likes, Set<Integer> directorIds) {
+        Entry entry() {
+            return new Entry(filmId, releaseDate, likes);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.director.DirectorStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.util.Collection;
+import java.util.List;
+
+// Первичная загрузка индексов фильмов: фильмы и режиссёры читаются один раз на все индексы.
+// Популярность загружается первой, остальные индексы берут из неё число лайков.
+@Component
+@Slf4j
+public class FilmIndexLoader {
+    private final FilmStorage filmStorage;
+    private final DirectorStorage directorStorage;
+    private final FilmPopularityIndex popularityIndex;
+    private final FilmSearchIndex searchIndex;
+    private final FilmSuggestIndex suggestIndex;
+    private final DirectorFilmIndex directorFilmIndex;
+
+    public FilmIndexLoader(FilmStorage filmStorage, DirectorStorage directorStorage,
+                           FilmPopularityIndex popularityIndex, FilmSearchIndex searchIndex,
+                           FilmSuggestIndex suggestIndex, DirectorFilmIndex directorFilmIndex) {
+        this.filmStorage = filmStorage;
+        this.directorStorage = directorStorage;
+        this.popularityIndex = popularityIndex;
+        this.searchIndex = searchIndex;
+        this.suggestIndex = suggestIndex;
+        this.directorFilmIndex = directorFilmIndex;
+    }
+
+    @PostConstruct
+    public void load() {
+        long started = System.currentTimeMillis();
+        Collection<Film> films = filmStorage.getAll();
+        List<Director> directors = directorStorage.getAll();
+
+        popularityIndex.load(films);
+        searchIndex.load(films, directors);
+        suggestIndex.load(films, directors);
+        directorFilmIndex.load(films);
+        log.info("Индексы фильмов загружены за {} мс", System.currentTimeMillis() - started);
+    }
+}
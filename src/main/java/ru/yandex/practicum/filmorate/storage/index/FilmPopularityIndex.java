@@ -0,0 +1,207 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.dao.LikeDao;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Component
+@Slf4j
+public class FilmPopularityIndex {
+    private static final Comparator<Entry> BY_LIKES_DESC = Comparator.comparingInt(Entry::likes).reversed()
+            .thenComparingInt(Entry::filmId);
+
+    private final LikeDao likeDao;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, FilmStats> statsByFilmId = new HashMap<>();
+    private final NavigableSet<Entry> ranking = new TreeSet<>(BY_LIKES_DESC);
+    private final Map<Integer, NavigableSet<Entry>> rankingByGenre = new HashMap<>();
+    private final Map<Integer, NavigableSet<Entry>> rankingByYear = new HashMap<>();
+    private final List<LikesListener> listeners = new CopyOnWriteArrayList<>();
+
+    public FilmPopularityIndex(LikeDao likeDao) {
+        this.likeDao = likeDao;
+    }
+
+    // вызывается из FilmIndexLoader, который один раз читает фильмы для всех индексов
+    public void load(Collection<Film> films) {
+        Map<Integer, Integer> likeCounts = likeDao.getLikeCounts();
+
+        lock.writeLock().lock();
+        try {
+            statsByFilmId.clear();
+            ranking.clear();
+            rankingByGenre.clear();
+            rankingByYear.clear();
+            for (Film film : films) {
+                index(new FilmStats(film.getId(), likeCounts.getOrDefault(film.getId(), 0),
+                        film.getReleaseDate().getYear(), genreIds(film)));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Индекс популярности загружен: {} фильмов", films.size());
+    }
+
+    public void addFilm(Film film) {
+        lock.writeLock().lock();
+        try {
+            FilmStats previous = statsByFilmId.get(film.getId());
+            int likes = previous != null ? previous.likes() : 0;
+            if (previous != null) {
+                unindex(previous);
+            }
+            index(new FilmStats(film.getId(), likes, film.getReleaseDate().getYear(), genreIds(film)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void updateFilm(Film film) {
+        addFilm(film);
+    }
+
+    public void removeFilm(int filmId) {
+        lock.writeLock().lock();
+        try {
+            FilmStats stats = statsByFilmId.get(filmId);
+            if (stats != null) {
+                unindex(stats);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void incrementLikes(int filmId) {
+        changeLikes(filmId, 1);
+    }
+
+    public void decrementLikes(int filmId) {
+        changeLikes(filmId, -1);
+    }
+
+    public void addListener(LikesListener listener) {
+        listeners.add(listener);
+    }
+
+    public int getLikes(int filmId) {
+        lock.readLock().lock();
+        try {
+            FilmStats stats = statsByFilmId.get(filmId);
+            return stats != null ? stats.likes() : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Integer> getTopFilmIds(int count, Integer genreId, Integer year) {
+        lock.readLock().lock();
+        try {
+            NavigableSet<Entry> source;
+            if (genreId != null) {
+                source = rankingByGenre.getOrDefault(genreId, Collections.emptyNavigableSet());
+            } else if (year != null) {
+                source = rankingByYear.getOrDefault(year, Collections.emptyNavigableSet());
+            } else {
+                source = ranking;
+            }
+
+            List<Integer> result = new ArrayList<>(Math.min(count, source.size()));
+            for (Entry entry : source) {
+                if (result.size() >= count) {
+                    break;
+                }
+                // при фильтре по жанру год проверяем по месту: пересечение двух срезов дороже
+                if (genreId != null && year != null && statsByFilmId.get(entry.filmId()).year() != year) {
+                    continue;
+                }
+                result.add(entry.filmId());
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void changeLikes(int filmId, int delta) {
+        lock.writeLock().lock();
+        try {
+            FilmStats stats = statsByFilmId.get(filmId);
+            if (stats == null) {
+                log.warn("Фильм {} отсутствует в индексе популярности", filmId);
+                return;
+            }
+            unindex(stats);
+            index(new FilmStats(filmId, Math.max(0, stats.likes() + delta), stats.year(), stats.genreIds()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // слушатели вызываются вне блокировки, поэтому уведомления о соседних изменениях могут прийти
+        // в любом порядке: число лайков слушатель перечитывает через getLikes под своей блокировкой
+        for (LikesListener listener : listeners) {
+            listener.likesChanged(filmId);
+        }
+    }
+
+    private void index(FilmStats stats) {
+        Entry entry = stats.entry();
+        statsByFilmId.put(stats.filmId(), stats);
+        ranking.add(entry);
+        rankingByYear.computeIfAbsent(stats.year(), k -> new TreeSet<>(BY_LIKES_DESC)).add(entry);
+        for (int genreId : stats.genreIds()) {
+            rankingByGenre.computeIfAbsent(genreId, k -> new TreeSet<>(BY_LIKES_DESC)).add(entry);
+        }
+    }
+
+    private void unindex(FilmStats stats) {
+        Entry entry = stats.entry();
+        statsByFilmId.remove(stats.filmId());
+        ranking.remove(entry);
+        removeFrom(rankingByYear, stats.year(), entry);
+        for (int genreId : stats.genreIds()) {
+            removeFrom(rankingByGenre, genreId, entry);
+        }
+    }
+
+    private void removeFrom(Map<Integer, NavigableSet<Entry>> slices, int key, Entry entry) {
+        NavigableSet<Entry> slice = slices.get(key);
+        if (slice != null) {
+            slice.remove(entry);
+            if (slice.isEmpty()) {
+                slices.remove(key);
+            }
+        }
+    }
+
+    private int[] genreIds(Film film) {
+        if (film.getGenres() == null) {
+            return new int[0];
+        }
+        return film.getGenres().stream()
+                .mapToInt(Genre::getId)
+                .distinct()
+                .toArray();
+    }
+
+    @FunctionalInterface
+    public interface LikesListener {
+        void likesChanged(int filmId);
+    }
+
+    private record Entry(int filmId, int likes) {
+    }
+
+    private record FilmStats(int filmId, int likes, int year, int[] genreIds) {
+        Entry entry() {
+            return new Entry(filmId, likes);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Триграммный индекс по названиям фильмов и именам режиссёров для поиска подстроки без сканирования таблиц
+@Component
+@Slf4j
+public class FilmSearchIndex {
+    private static final int GRAM_LENGTH = 3;
+
+    private final FilmPopularityIndex popularityIndex;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, String> titles = new HashMap<>();
+    private final Map<String, Set<Integer>> titleGrams = new HashMap<>();
+    private final Map<Integer, String> directorNames = new HashMap<>();
+    private final Map<String, Set<Integer>> directorGrams = new HashMap<>();
+    private final Map<Integer, Set<Integer>> filmsByDirector = new HashMap<>();
+    private final Map<Integer, Set<Integer>> directorsByFilm = new HashMap<>();
+
+    public FilmSearchIndex(FilmPopularityIndex popularityIndex) {
+        this.popularityIndex = popularityIndex;
+    }
+
+    public void load(Collection<Film> films, List<Director> directors) {
+        lock.writeLock().lock();
+        try {
+            titles.clear();
+            titleGrams.clear();
+            directorNames.clear();
+            directorGrams.clear();
+            filmsByDirector.clear();
+            directorsByFilm.clear();
+            directors.forEach(director -> indexText(directorNames, directorGrams, director.getId(), director.getName()));
+            films.forEach(this::indexFilm);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Поисковый индекс загружен: {} фильмов, {} режиссёров", films.size(), directors.size());
+    }
+
+    public void addFilm(Film film) {
+        lock.writeLock().lock();
+        try {
+            unindexFilm(film.getId());
+            indexFilm(film);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void updateFilm(Film film) {
+        addFilm(film);
+    }
+
+    public void removeFilm(int filmId) {
+        lock.writeLock().lock();
+        try {
+            unindexFilm(filmId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void addDirector(Director director) {
+        lock.writeLock().lock();
+        try {
+            unindexText(directorNames, directorGrams, director.getId());
+            indexText(directorNames, directorGrams, director.getId(), director.getName());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void updateDirector(Director director) {
+        addDirector(director);
+    }
+
+    // связи режиссёра с фильмами удаляются в БД каскадно, здесь убираем их вручную
+    public void removeDirector(int directorId) {
+        lock.writeLock().lock();
+        try {
+            unindexText(directorNames, directorGrams, directorId);
+            Set<Integer> filmIds = filmsByDirector.remove(directorId);
+            if (filmIds != null) {
+                for (int filmId : filmIds) {
+                    Set<Integer> directorIds = directorsByFilm.get(filmId);
+                    if (directorIds != null) {
+                        directorIds.remove(directorId);
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // id фильмов, отсортированные по числу лайков, как в прежнем SQL-поиске
+    public List<Integer> search(String query, boolean searchByTitle, boolean searchByDirector) {
+        String normalized = normalize(query);
+        Set<Integer> filmIds = new HashSet<>();
+
+        lock.readLock().lock();
+        try {
+            if (searchByTitle) {
+                filmIds.addAll(match(titles, titleGrams, normalized));
+            }
+            if (searchByDirector) {
+                for (int directorId : match(directorNames, directorGrams, normalized)) {
+                    filmIds.addAll(filmsByDirector.getOrDefault(directorId, Collections.emptySet()));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<Integer, Integer> likes = new HashMap<>();
+        filmIds.forEach(id -> likes.put(id, popularityIndex.getLikes(id)));
+        List<Integer> result = new ArrayList<>(filmIds);
+        result.sort(Comparator.comparing((Integer id) -> likes.get(id)).reversed()
+                .thenComparing(Comparator.naturalOrder()));
+        return result;
+    }
+
+    private void indexFilm(Film film) {
+        indexText(titles, titleGrams, film.getId(), film.getName());
+        if (film.getDirectors() == null) {
+            return;
+        }
+        for (Director director : film.getDirectors()) {
+            filmsByDirector.computeIfAbsent(director.getId(), k -> new HashSet<>()).add(film.getId());
+            directorsByFilm.computeIfAbsent(film.getId(), k -> new HashSet<>()).add(director.getId());
+        }
+    }
+
+    private void unindexFilm(int filmId) {
+        unindexText(titles, titleGrams, filmId);
+        Set<Integer> directorIds = directorsByFilm.remove(filmId);
+        if (directorIds == null) {
+            return;
+        }
+        for (int directorId : directorIds) {
+            Set<Integer> filmIds = filmsByDirector.get(directorId);
+            if (filmIds != null) {
+                filmIds.remove(filmId);
+                if (filmIds.isEmpty()) {
+                    filmsByDirector.remove(directorId);
+                }
+            }
+        }
+    }
+
+    private void indexText(Map<Integer, String> texts, Map<String, Set<Integer>> grams, int id, String text) {
+        String normalized = normalize(text);
+        texts.put(id, normalized);
+        for (String gram : grams(normalized)) {
+            grams.computeIfAbsent(gram, k -> new HashSet<>()).add(id);
+        }
+    }
+
+    private void unindexText(Map<Integer, String> texts, Map<String, Set<Integer>> grams, int id) {
+        String previous = texts.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String gram : grams(previous)) {
+            Set<Integer> ids = grams.get(gram);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    grams.remove(gram);
+                }
+            }
+        }
+    }
+
+    private Set<Integer> match(Map<Integer, String> texts, Map<String, Set<Integer>> grams, String query) {
+        Set<Integer> result = new HashSet<>();
+        if (query.length() < GRAM_LENGTH) {
+            // слишком короткий запрос не даёт ни одной триграммы, проверяем тексты напрямую
+            texts.forEach((id, text) -> {
+                if (text.contains(query)) {
+                    result.add(id);
+                }
+            });
+            return result;
+        }
+
+        List<Set<Integer>> postings = new ArrayList<>();
+        for (String gram : grams(query)) {
+            Set<Integer> ids = grams.get(gram);
+            if (ids == null) {
+                return result;
+            }
+            postings.add(ids);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+
+        // пересечение триграмм не гарантирует, что они идут подряд, поэтому кандидатов проверяем по тексту
+        for (int id : postings.get(0)) {
+            if (containsInAll(postings, id) && texts.get(id).contains(query)) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    private boolean containsInAll(List<Set<Integer>> postings, int id) {
+        for (int i = 1; i < postings.size(); i++) {
+            if (!postings.get(i).contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Set<String> grams(String text) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            result.add(text.substring(i, i + GRAM_LENGTH));
+        }
+        return result;
+    }
+
+    private String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,187 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Подсказки для строки поиска: названия фильмов весят числом лайков,
+// имена режиссёров — суммой лайков их фильмов
+@Component
+@Slf4j
+public class FilmSuggestIndex {
+    private static final long DIRECTOR_OWNER = 1L << 32;
+
+    private final FilmPopularityIndex popularityIndex;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final WeightedTrie trie = new WeightedTrie();
+    private final Map<Integer, String> filmTitles = new HashMap<>();
+    private final Map<Integer, Integer> filmLikes = new HashMap<>();
+    private final Map<Integer, String> directorNames = new HashMap<>();
+    private final Map<Integer, Set<Integer>> filmsByDirector = new HashMap<>();
+    private final Map<Integer, Set<Integer>> directorsByFilm = new HashMap<>();
+
+    public FilmSuggestIndex(FilmPopularityIndex popularityIndex) {
+        this.popularityIndex = popularityIndex;
+    }
+
+    public void load(Collection<Film> films, List<Director> directors) {
+        lock.writeLock().lock();
+        try {
+            for (Director director : directors) {
+                directorNames.put(director.getId(), director.getName());
+            }
+            for (Film film : films) {
+                putFilm(film, popularityIndex.getLikes(film.getId()));
+            }
+            directorNames.keySet().forEach(this::putDirector);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        popularityIndex.addListener(this::likesChanged);
+        log.info("Индекс подсказок загружен: {} фильмов, {} режиссёров", films.size(), directors.size());
+    }
+
+    public void addFilm(Film film) {
+        lock.writeLock().lock();
+        try {
+            Set<Integer> affectedDirectors = new HashSet<>(removeFilmEntry(film.getId()));
+            putFilm(film, popularityIndex.getLikes(film.getId()));
+            affectedDirectors.addAll(directorsByFilm.getOrDefault(film.getId(), Collections.emptySet()));
+            affectedDirectors.forEach(this::putDirector);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void updateFilm(Film film) {
+        addFilm(film);
+    }
+
+    public void removeFilm(int filmId) {
+        lock.writeLock().lock();
+        try {
+            removeFilmEntry(filmId).forEach(this::putDirector);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void addDirector(Director director) {
+        lock.writeLock().lock();
+        try {
+            String previous = directorNames.put(director.getId(), director.getName());
+            if (previous != null) {
+                trie.remove(normalize(previous), DIRECTOR_OWNER | director.getId());
+            }
+            putDirector(director.getId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void updateDirector(Director director) {
+        addDirector(director);
+    }
+
+    public void removeDirector(int directorId) {
+        lock.writeLock().lock();
+        try {
+            String name = directorNames.remove(directorId);
+            if (name != null) {
+                trie.remove(normalize(name), DIRECTOR_OWNER | directorId);
+            }
+            Set<Integer> filmIds = filmsByDirector.remove(directorId);
+            if (filmIds == null) {
+                return;
+            }
+            for (int filmId : filmIds) {
+                Set<Integer> directorIds = directorsByFilm.get(filmId);
+                if (directorIds != null) {
+                    directorIds.remove(directorId);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<String> suggest(String prefix, int limit) {
+        lock.readLock().lock();
+        try {
+            return trie.top(normalize(prefix), limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void likesChanged(int filmId) {
+        lock.writeLock().lock();
+        try {
+            String title = filmTitles.get(filmId);
+            if (title == null) {
+                return;
+            }
+            int likes = popularityIndex.getLikes(filmId);
+            filmLikes.put(filmId, likes);
+            trie.put(normalize(title), filmId, title, likes);
+            directorsByFilm.getOrDefault(filmId, Collections.emptySet()).forEach(this::putDirector);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void putFilm(Film film, int likes) {
+        filmTitles.put(film.getId(), film.getName());
+        filmLikes.put(film.getId(), likes);
+        trie.put(normalize(film.getName()), film.getId(), film.getName(), likes);
+        if (film.getDirectors() == null) {
+            return;
+        }
+        for (Director director : film.getDirectors()) {
+            filmsByDirector.computeIfAbsent(director.getId(), k -> new HashSet<>()).add(film.getId());
+            directorsByFilm.computeIfAbsent(film.getId(), k -> new HashSet<>()).add(director.getId());
+        }
+    }
+
+    // возвращает режиссёров фильма, чей вес нужно пересчитать
+    private Set<Integer> removeFilmEntry(int filmId) {
+        String title = filmTitles.remove(filmId);
+        filmLikes.remove(filmId);
+        if (title != null) {
+            trie.remove(normalize(title), filmId);
+        }
+        Set<Integer> directorIds = directorsByFilm.remove(filmId);
+        if (directorIds == null) {
+            return Collections.emptySet();
+        }
+        for (int directorId : directorIds) {
+            Set<Integer> filmIds = filmsByDirector.get(directorId);
+            if (filmIds != null) {
+                filmIds.remove(filmId);
+            }
+        }
+        return directorIds;
+    }
+
+    private void putDirector(int directorId) {
+        String name = directorNames.get(directorId);
+        if (name == null) {
+            return;
+        }
+        int weight = 0;
+        for (int filmId : filmsByDirector.getOrDefault(directorId, Collections.emptySet())) {
+            weight += filmLikes.getOrDefault(filmId, 0);
+        }
+        trie.put(normalize(name), DIRECTOR_OWNER | directorId, name, weight);
+    }
+
+    private String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+}
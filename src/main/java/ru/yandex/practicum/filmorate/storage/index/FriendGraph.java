@@ -0,0 +1,153 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.dao.FriendshipDao;
+import ru.yandex.practicum.filmorate.storage.index.SortedIntArrays.IntList;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static ru.yandex.practicum.filmorate.storage.index.SortedIntArrays.EMPTY;
+import static ru.yandex.practicum.filmorate.storage.index.SortedIntArrays.insert;
+import static ru.yandex.practicum.filmorate.storage.index.SortedIntArrays.intersect;
+import static ru.yandex.practicum.filmorate.storage.index.SortedIntArrays.remove;
+
+// Граф дружбы в памяти: исходящие заявки пользователя и обратные ссылки хранятся отсортированными массивами id
+@Component
+@Slf4j
+public class FriendGraph {
+    private final FriendshipDao friendshipDao;
+    private final int maxSuggestionEdges;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, int[]> friendsByUser = new HashMap<>();
+    private final Map<Integer, int[]> followersByUser = new HashMap<>();
+
+    public FriendGraph(FriendshipDao friendshipDao,
+                       @Value("${filmorate.friends.suggestions.max-edges:100000}") int maxSuggestionEdges) {
+        this.friendshipDao = friendshipDao;
+        this.maxSuggestionEdges = maxSuggestionEdges;
+    }
+
+    @PostConstruct
+    public void load() {
+        Map<Integer, IntList> friends = new HashMap<>();
+        Map<Integer, IntList> followers = new HashMap<>();
+        friendshipDao.forEachFriendship((userId, friendId) -> {
+            friends.computeIfAbsent(userId, k -> new IntList()).add(friendId);
+            followers.computeIfAbsent(friendId, k -> new IntList()).add(userId);
+        });
+
+        lock.writeLock().lock();
+        try {
+            friendsByUser.clear();
+            followersByUser.clear();
+            friends.forEach((userId, ids) -> friendsByUser.put(userId, ids.toSortedArray()));
+            followers.forEach((userId, ids) -> followersByUser.put(userId, ids.toSortedArray()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Граф дружбы загружен: {} пользователей с друзьями", friends.size());
+    }
+
+    public void addFriend(int userId, int friendId) {
+        lock.writeLock().lock();
+        try {
+            friendsByUser.put(userId, insert(friendsByUser.getOrDefault(userId, EMPTY), friendId));
+            followersByUser.put(friendId, insert(followersByUser.getOrDefault(friendId, EMPTY), userId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeFriend(int userId, int friendId) {
+        lock.writeLock().lock();
+        try {
+            putOrRemove(friendsByUser, userId, remove(friendsByUser.get(userId), friendId));
+            putOrRemove(followersByUser, friendId, remove(followersByUser.get(friendId), userId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // дружба пользователя удаляется в БД каскадно в обе стороны
+    public void removeUser(int userId) {
+        lock.writeLock().lock();
+        try {
+            int[] friends = friendsByUser.remove(userId);
+            if (friends != null) {
+                for (int friendId : friends) {
+                    putOrRemove(followersByUser, friendId, remove(followersByUser.get(friendId), userId));
+                }
+            }
+            int[] followers = followersByUser.remove(userId);
+            if (followers != null) {
+                for (int followerId : followers) {
+                    putOrRemove(friendsByUser, followerId, remove(friendsByUser.get(followerId), userId));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int[] getFriendIds(int userId) {
+        lock.readLock().lock();
+        try {
+            return friendsByUser.getOrDefault(userId, EMPTY);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int[] getCommonFriendIds(int userId, int otherId) {
+        lock.readLock().lock();
+        try {
+            return intersect(friendsByUser.getOrDefault(userId, EMPTY), friendsByUser.getOrDefault(otherId, EMPTY));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // друзья друзей по убыванию числа общих друзей. Обход ограничен двумя шагами и числом просмотренных рёбер,
+    // поэтому у пользователя с огромным окружением ответ остаётся быстрым, хотя и по неполной выборке
+    public int[] suggestFriends(int userId, int limit) {
+        lock.readLock().lock();
+        try {
+            int[] friends = friendsByUser.getOrDefault(userId, EMPTY);
+            if (friends.length == 0) {
+                return EMPTY;
+            }
+
+            IntCounter mutual = new IntCounter(friends.length * 4);
+            int budget = maxSuggestionEdges;
+            for (int friendId : friends) {
+                for (int candidateId : friendsByUser.getOrDefault(friendId, EMPTY)) {
+                    if (budget-- <= 0) {
+                        return mutual.topKeys(limit);
+                    }
+                    if (candidateId != userId && Arrays.binarySearch(friends, candidateId) < 0) {
+                        mutual.increment(candidateId);
+                    }
+                }
+            }
+            return mutual.topKeys(limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void putOrRemove(Map<Integer, int[]> index, int key, int[] values) {
+        if (values.length == 0) {
+            index.remove(key);
+        } else {
+            index.put(key, values);
+        }
+    }
+}
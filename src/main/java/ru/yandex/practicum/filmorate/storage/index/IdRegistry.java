@@ -0,0 +1,106 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+
+// Множество известных id сущностей для проверки существования без чтения самой сущности.
+// Загружается лениво при первом обращении, при промахе проверка уходит в БД.
+// Удалённые в транзакции id помечаются: пока удаление не зафиксировано, БД ещё видит запись, и без метки
+// проверка через БД вернула бы id в реестр навсегда. После фиксации транзакции метка снимается.
+public class IdRegistry {
+    private final Supplier<Collection<Integer>> loader;
+    private final IntPredicate fallback;
+    private final Set<Integer> ids = ConcurrentHashMap.newKeySet();
+    private final Set<Integer> deleted = new HashSet<>();
+    private volatile boolean loaded;
+    // растёт при удалении без метки и при снятии метки: проверка через БД, начатая раньше,
+    // могла увидеть ещё не удалённую запись и не должна кэшировать id
+    private volatile long removals;
+
+    public IdRegistry(Supplier<Collection<Integer>> loader, IntPredicate fallback) {
+        this.loader = loader;
+        this.fallback = fallback;
+    }
+
+    public boolean contains(int id) {
+        ensureLoaded();
+        if (ids.contains(id)) {
+            return true;
+        }
+        // запись могла появиться в обход хранилища, поэтому отрицательный ответ подтверждаем в БД
+        long removalsBefore = removals;
+        if (fallback.test(id)) {
+            synchronized (this) {
+                if (!deleted.contains(id) && removals == removalsBefore) {
+                    ids.add(id);
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    public void add(int id) {
+        ids.add(id);
+    }
+
+    public void remove(int id) {
+        // вне транзакции удаление уже зафиксировано, метка не нужна
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            synchronized (this) {
+                ids.remove(id);
+                removals++;
+            }
+            return;
+        }
+        synchronized (this) {
+            deleted.add(id);
+            ids.remove(id);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    prune(id);
+                } else if (status == STATUS_ROLLED_BACK) {
+                    restore(id);
+                }
+            }
+        });
+    }
+
+    public void removeAll(Collection<Integer> removedIds) {
+        removedIds.forEach(this::remove);
+    }
+
+    private synchronized void restore(int id) {
+        deleted.remove(id);
+        ids.add(id);
+    }
+
+    private synchronized void prune(int id) {
+        if (deleted.remove(id)) {
+            removals++;
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (!loaded) {
+                ids.addAll(loader.get());
+                ids.removeAll(deleted);
+                loaded = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import java.util.Arrays;
+
+// Счётчик по целочисленным ключам на открытой адресации: без упаковки ключей и значений в объекты
+public class IntCounter {
+    private static final int FREE = Integer.MIN_VALUE;
+
+    private int[] keys;
+    private int[] counts;
+    private int size;
+
+    public IntCounter(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        keys = new int[capacity];
+        counts = new int[capacity];
+        Arrays.fill(keys, FREE);
+    }
+
+    public void increment(int key) {
+        add(key, 1);
+    }
+
+    public void add(int key, int delta) {
+        int slot = slot(key);
+        if (keys[slot] == FREE) {
+            keys[slot] = key;
+            size++;
+            if (size * 2 > keys.length) {
+                counts[slot] = delta;
+                grow();
+                return;
+            }
+        }
+        counts[slot] += delta;
+    }
+
+    public int get(int key) {
+        int slot = slot(key);
+        return keys[slot] == FREE ? 0 : counts[slot];
+    }
+
+    public boolean contains(int key) {
+        return keys[slot(key)] != FREE;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // ключи с наибольшими значениями; при равенстве первым идёт меньший ключ (ключи неотрицательные)
+    public int[] topKeys(int limit) {
+        long[] packed = new long[size];
+        int n = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE) {
+                packed[n++] = ((long) counts[i] << 32) | (Integer.MAX_VALUE - keys[i]);
+            }
+        }
+        Arrays.sort(packed);
+
+        int resultSize = Math.min(limit, n);
+        int[] result = new int[resultSize];
+        for (int i = 0; i < resultSize; i++) {
+            result[i] = Integer.MAX_VALUE - (int) packed[n - 1 - i];
+        }
+        return result;
+    }
+
+    private int slot(int key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new int[oldKeys.length * 2];
+        counts = new int[oldCounts.length * 2];
+        Arrays.fill(keys, FREE);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
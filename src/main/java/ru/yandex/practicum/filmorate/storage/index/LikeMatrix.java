@@ -0,0 +1,153 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.dao.RecommendationDao;
+import ru.yandex.practicum.filmorate.storage.index.SortedIntArrays.IntList;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static ru.yandex.practicum.filmorate.storage.index.SortedIntArrays.EMPTY;
+
+// Разреженная матрица лайков пользователь × фильм: строки и столбцы хранятся отсортированными массивами id
+// с запасом ёмкости, так что лайк вставляется на место без копирования всей строки
+@Component
+@Slf4j
+public class LikeMatrix {
+    private final RecommendationDao recommendationDao;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, SortedIntSet> filmsByUser = new HashMap<>();
+    private final Map<Integer, SortedIntSet> usersByFilm = new HashMap<>();
+
+    public LikeMatrix(RecommendationDao recommendationDao) {
+        this.recommendationDao = recommendationDao;
+    }
+
+    @PostConstruct
+    public void load() {
+        Map<Integer, IntList> rows = new HashMap<>();
+        Map<Integer, IntList> columns = new HashMap<>();
+        recommendationDao.forEachLike((userId, filmId) -> {
+            rows.computeIfAbsent(userId, k -> new IntList()).add(filmId);
+            columns.computeIfAbsent(filmId, k -> new IntList()).add(userId);
+        });
+
+        lock.writeLock().lock();
+        try {
+            filmsByUser.clear();
+            usersByFilm.clear();
+            rows.forEach((userId, films) -> filmsByUser.put(userId, new SortedIntSet(films.toSortedArray())));
+            columns.forEach((filmId, users) -> usersByFilm.put(filmId, new SortedIntSet(users.toSortedArray())));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Матрица лайков загружена: {} пользователей, {} фильмов", rows.size(), columns.size());
+    }
+
+    public void addLike(int userId, int filmId) {
+        lock.writeLock().lock();
+        try {
+            filmsByUser.computeIfAbsent(userId, k -> new SortedIntSet()).add(filmId);
+            usersByFilm.computeIfAbsent(filmId, k -> new SortedIntSet()).add(userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeLike(int userId, int filmId) {
+        lock.writeLock().lock();
+        try {
+            removeFromLine(filmsByUser, userId, filmId);
+            removeFromLine(usersByFilm, filmId, userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeUser(int userId) {
+        lock.writeLock().lock();
+        try {
+            SortedIntSet films = filmsByUser.remove(userId);
+            if (films != null) {
+                for (int i = 0; i < films.size(); i++) {
+                    removeFromLine(usersByFilm, films.get(i), userId);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeFilm(int filmId) {
+        lock.writeLock().lock();
+        try {
+            SortedIntSet users = usersByFilm.remove(filmId);
+            if (users != null) {
+                for (int i = 0; i < users.size(); i++) {
+                    removeFromLine(filmsByUser, users.get(i), filmId);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // строка меняется на месте, поэтому наружу отдаём копию
+    public int[] getFilmIds(int userId) {
+        lock.readLock().lock();
+        try {
+            SortedIntSet films = filmsByUser.get(userId);
+            return films != null ? films.toArray() : EMPTY;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int[] getUserIds() {
+        lock.readLock().lock();
+        try {
+            return filmsByUser.keySet().stream()
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // пересечение строки пользователя со всеми остальными строками считается обходом столбцов его фильмов
+    public int[] findSimilarUsers(int userId, int limit) {
+        lock.readLock().lock();
+        try {
+            SortedIntSet films = filmsByUser.get(userId);
+            if (films == null) {
+                return EMPTY;
+            }
+
+            IntCounter overlap = new IntCounter(films.size() * 4);
+            for (int i = 0; i < films.size(); i++) {
+                SortedIntSet users = usersByFilm.get(films.get(i));
+                for (int j = 0; j < users.size(); j++) {
+                    int otherId = users.get(j);
+                    if (otherId != userId) {
+                        overlap.increment(otherId);
+                    }
+                }
+            }
+            return overlap.topKeys(limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeFromLine(Map<Integer, SortedIntSet> index, int key, int value) {
+        SortedIntSet line = index.get(key);
+        if (line != null && line.remove(value) && line.isEmpty()) {
+            index.remove(key);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Заранее посчитанные соседи пользователей и фильмы-кандидаты для рекомендаций
+@Component
+@Slf4j
+public class NeighbourTable {
+    private static final int SWEEP_THRESHOLD = 64;
+
+    private final LikeMatrix likeMatrix;
+    private final int neighbours;
+    private final ForkJoinPool pool;
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    private volatile Map<Integer, Neighbourhood> table = new ConcurrentHashMap<>();
+
+    public NeighbourTable(LikeMatrix likeMatrix,
+                          @Value("${filmorate.recommendations.neighbours:10}") int neighbours,
+                          @Value("${filmorate.recommendations.parallelism:0}") int parallelism) {
+        this.likeMatrix = likeMatrix;
+        this.neighbours = neighbours;
+        this.pool = parallelism > 0 ? new ForkJoinPool(parallelism) : ForkJoinPool.commonPool();
+    }
+
+    @Scheduled(initialDelayString = "${filmorate.recommendations.initial-delay-ms:0}",
+            fixedDelayString = "${filmorate.recommendations.refresh-interval-ms:60000}")
+    public void scheduleRefresh() {
+        // пересчёт уходит в свой пул, чтобы не держать поток планировщика; следующий запуск ждёт окончания текущего
+        if (sweeping.compareAndSet(false, true)) {
+            pool.execute(() -> {
+                try {
+                    refresh();
+                } catch (RuntimeException e) {
+                    log.error("Не удалось пересчитать таблицу соседей", e);
+                } finally {
+                    sweeping.set(false);
+                }
+            });
+        }
+    }
+
+    public void refresh() {
+        long started = System.currentTimeMillis();
+        int[] userIds = likeMatrix.getUserIds();
+        Map<Integer, Neighbourhood> fresh = new ConcurrentHashMap<>(userIds.length * 2);
+        pool.invoke(new Sweep(userIds, 0, userIds.length, fresh));
+        fresh.values().removeIf(neighbourhood -> neighbourhood == Neighbourhood.EMPTY);
+        table = fresh;
+        log.debug("Таблица соседей пересчитана: {} пользователей за {} мс",
+                userIds.length, System.currentTimeMillis() - started);
+    }
+
+    public Neighbourhood get(int userId) {
+        Neighbourhood neighbourhood = table.get(userId);
+        if (neighbourhood == null) {
+            neighbourhood = compute(userId);
+            // пустое соседство не запоминаем: у пользователя может вскоре появиться первый лайк
+            if (neighbourhood != Neighbourhood.EMPTY) {
+                table.put(userId, neighbourhood);
+            }
+        }
+        return neighbourhood;
+    }
+
+    public void invalidate(int userId) {
+        table.remove(userId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != ForkJoinPool.commonPool()) {
+            pool.shutdown();
+        }
+    }
+
+    private Neighbourhood compute(int userId) {
+        int[] ownFilms = likeMatrix.getFilmIds(userId);
+        if (ownFilms.length == 0) {
+            return Neighbourhood.EMPTY;
+        }
+
+        int[] similarUsers = likeMatrix.findSimilarUsers(userId, neighbours);
+        IntCounter candidates = new IntCounter(similarUsers.length * 8);
+        for (int similarUserId : similarUsers) {
+            for (int filmId : likeMatrix.getFilmIds(similarUserId)) {
+                if (Arrays.binarySearch(ownFilms, filmId) < 0) {
+                    candidates.increment(filmId);
+                }
+            }
+        }
+        return new Neighbourhood(similarUsers, candidates.topKeys(candidates.size()));
+    }
+
+    public record Neighbourhood(int[] similarUserIds, int[] candidateFilmIds) {
+        static final Neighbourhood EMPTY = new Neighbourhood(new int[0], new int[0]);
+    }
+
+    private class Sweep extends RecursiveAction {
+        private final int[] userIds;
+        private final int from;
+        private final int to;
+        private final Map<Integer, Neighbourhood> target;
+
+        Sweep(int[] userIds, int from, int to, Map<Integer, Neighbourhood> target) {
+            this.userIds = userIds;
+            this.from = from;
+            this.to = to;
+            this.target = target;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SWEEP_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    target.put(userIds[i], NeighbourTable.this.compute(userIds[i]));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Sweep(userIds, from, middle, target), new Sweep(userIds, middle, to, target));
+        }
+    }
+}
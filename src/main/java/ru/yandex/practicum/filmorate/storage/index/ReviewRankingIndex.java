@@ -0,0 +1,138 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.storage.review.ReviewStorage;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Predicate;
+
+// Отзывы по убыванию полезности, общий рейтинг и по каждому фильму.
+// Чтение идёт без блокировок по скип-листам, запись сериализуется по отзыву.
+@Component
+@Slf4j
+public class ReviewRankingIndex {
+    private static final Comparator<Entry> BY_USEFUL_DESC = Comparator.comparingInt(Entry::useful).reversed()
+            .thenComparingInt(Entry::reviewId);
+
+    private final ReviewStorage reviewStorage;
+
+    private final ConcurrentHashMap<Integer, ReviewStats> statsByReviewId = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(BY_USEFUL_DESC);
+    private final ConcurrentHashMap<Integer, ConcurrentSkipListSet<Entry>> rankingByFilm = new ConcurrentHashMap<>();
+
+    public ReviewRankingIndex(ReviewStorage reviewStorage) {
+        this.reviewStorage = reviewStorage;
+    }
+
+    @PostConstruct
+    public void load() {
+        List<Review> reviews = reviewStorage.getReviewsByFilmId(null, Integer.MAX_VALUE);
+        statsByReviewId.clear();
+        ranking.clear();
+        rankingByFilm.clear();
+        reviews.forEach(this::addReview);
+        log.info("Индекс полезности отзывов загружен: {} отзывов", reviews.size());
+    }
+
+    public void addReview(Review review) {
+        statsByReviewId.compute(review.getReviewId(), (id, previous) -> {
+            ReviewStats stats = new ReviewStats(id, review.getFilmId(), review.getUserId(), review.getUseful());
+            if (previous != null) {
+                // равные записи совпадают в скип-листе, поэтому старую убираем до добавления новой
+                unindex(previous);
+            }
+            index(stats);
+            return stats;
+        });
+    }
+
+    // применяем изменение, а не новое значение: ответы параллельных голосований могут прийти
+    // в любом порядке, а сумма изменений от порядка не зависит
+    public void addUseful(int reviewId, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        statsByReviewId.computeIfPresent(reviewId, (id, previous) -> {
+            ReviewStats stats = new ReviewStats(id, previous.filmId(), previous.userId(), previous.useful() + delta);
+            // новую запись добавляем раньше, чем убираем старую: читатель может увидеть отзыв дважды,
+            // но не потеряет его, а повтор отсекается при чтении
+            index(stats);
+            unindex(previous);
+            return stats;
+        });
+    }
+
+    public void removeReview(int reviewId) {
+        statsByReviewId.computeIfPresent(reviewId, (id, previous) -> {
+            unindex(previous);
+            return null;
+        });
+    }
+
+    // отзывы фильма и пользователя удаляются в БД каскадно
+    public void removeFilm(int filmId) {
+        removeMatching(stats -> stats.filmId() == filmId);
+    }
+
+    public void removeUser(int userId) {
+        removeMatching(stats -> stats.userId() == userId);
+    }
+
+    public List<Integer> getTopReviewIds(Integer filmId, int count) {
+        Set<Entry> source = filmId == null ? ranking : rankingByFilm.get(filmId);
+        if (source == null) {
+            return Collections.emptyList();
+        }
+        Set<Integer> result = new LinkedHashSet<>();
+        for (Entry entry : source) {
+            if (result.size() >= count) {
+                break;
+            }
+            result.add(entry.reviewId());
+        }
+        return new ArrayList<>(result);
+    }
+
+    private void removeMatching(Predicate<ReviewStats> predicate) {
+        for (ReviewStats stats : statsByReviewId.values()) {
+            if (predicate.test(stats)) {
+                removeReview(stats.reviewId());
+            }
+        }
+    }
+
+    private void index(ReviewStats stats) {
+        Entry entry = stats.entry();
+        ranking.add(entry);
+        rankingByFilm.compute(stats.filmId(), (filmId, entries) -> {
+            ConcurrentSkipListSet<Entry> result = entries != null
+                    ? entries
+                    : new ConcurrentSkipListSet<>(BY_USEFUL_DESC);
+            result.add(entry);
+            return result;
+        });
+    }
+
+    private void unindex(ReviewStats stats) {
+        Entry entry = stats.entry();
+        ranking.remove(entry);
+        rankingByFilm.computeIfPresent(stats.filmId(), (filmId, entries) -> {
+            entries.remove(entry);
+            return entries.isEmpty() ? null : entries;
+        });
+    }
+
+    private record Entry(int reviewId, int useful) {
+    }
+
+    private record ReviewStats(int reviewId, int filmId, int userId, int useful) {
+        Entry entry() {
+            return new Entry(reviewId, useful);
+        }
+    }
+}
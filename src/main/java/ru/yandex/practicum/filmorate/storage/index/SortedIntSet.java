@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import java.util.Arrays;
+
+// Отсортированное множество int с запасом ёмкости: вставка и удаление сдвигают хвост на месте,
+// новый массив выделяется только при росте. Не потокобезопасно, синхронизацию обеспечивает владелец.
+public final class SortedIntSet {
+    private static final int INITIAL_CAPACITY = 4;
+
+    private int[] values;
+    private int size;
+
+    public SortedIntSet() {
+        values = new int[INITIAL_CAPACITY];
+    }
+
+    // массив должен быть отсортирован и без повторов, он становится внутренним хранилищем
+    public SortedIntSet(int[] sorted) {
+        values = sorted;
+        size = sorted.length;
+    }
+
+    public boolean add(int value) {
+        int pos = Arrays.binarySearch(values, 0, size, value);
+        if (pos >= 0) {
+            return false;
+        }
+        int insertAt = -pos - 1;
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(INITIAL_CAPACITY, size + (size >> 1)));
+        }
+        System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+        values[insertAt] = value;
+        size++;
+        return true;
+    }
+
+    public boolean remove(int value) {
+        int pos = Arrays.binarySearch(values, 0, size, value);
+        if (pos < 0) {
+            return false;
+        }
+        System.arraycopy(values, pos + 1, values, pos, size - pos - 1);
+        size--;
+        return true;
+    }
+
+    public boolean contains(int value) {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    public int get(int index) {
+        return values[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
@@ -0,0 +1,170 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import java.util.*;
+
+// Префиксное дерево с весами. Дети узла хранятся в отсортированных массивах вместо карт,
+// а каждый узел помнит наибольший вес в своём поддереве, поэтому лучшие продолжения
+// находятся обходом по убыванию веса без просмотра всего поддерева.
+// Не потокобезопасно: синхронизация на стороне владельца.
+public class WeightedTrie {
+    private static final char[] NO_LABELS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    private final Node root = new Node();
+
+    public void put(String key, long ownerId, String text, int weight) {
+        List<Node> path = new ArrayList<>(key.length() + 1);
+        Node node = root;
+        path.add(node);
+        for (int i = 0; i < key.length(); i++) {
+            node = node.childOrCreate(key.charAt(i));
+            path.add(node);
+        }
+        node.addEntry(new Entry(ownerId, text, weight));
+        recomputeWeights(path);
+    }
+
+    public void remove(String key, long ownerId) {
+        List<Node> path = new ArrayList<>(key.length() + 1);
+        Node node = root;
+        path.add(node);
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+            path.add(node);
+        }
+        if (node == null || !node.removeEntry(ownerId)) {
+            return;
+        }
+        // пустые ветки отрезаем, чтобы дерево не разрасталось от переименований
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node current = path.get(i);
+            if (current.entries.length > 0 || current.labels.length > 0) {
+                break;
+            }
+            path.get(i - 1).removeChild(key.charAt(i - 1));
+            path.remove(i);
+        }
+        recomputeWeights(path);
+    }
+
+    // тексты с наибольшим весом среди ключей с заданным префиксом, одинаковые тексты схлопываются
+    public List<String> top(String prefix, int limit) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i));
+        }
+        if (node == null) {
+            return Collections.emptyList();
+        }
+
+        Set<String> result = new LinkedHashSet<>();
+        PriorityQueue<Candidate> queue = new PriorityQueue<>(
+                Comparator.comparingInt(Candidate::weight).reversed());
+        queue.add(new Candidate(node.maxWeight, node, null));
+        while (!queue.isEmpty() && result.size() < limit) {
+            Candidate candidate = queue.poll();
+            if (candidate.entry() != null) {
+                result.add(candidate.entry().text());
+                continue;
+            }
+            for (Entry entry : candidate.node().entries) {
+                queue.add(new Candidate(entry.weight(), null, entry));
+            }
+            for (Node child : candidate.node().children) {
+                queue.add(new Candidate(child.maxWeight, child, null));
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    private void recomputeWeights(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            path.get(i).recomputeWeight();
+        }
+    }
+
+    private record Entry(long ownerId, String text, int weight) {
+    }
+
+    private record Candidate(int weight, Node node, Entry entry) {
+    }
+
+    private static final class Node {
+        private char[] labels = NO_LABELS;
+        private Node[] children = NO_CHILDREN;
+        private Entry[] entries = NO_ENTRIES;
+        private int maxWeight = Integer.MIN_VALUE;
+
+        Node child(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node childOrCreate(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insertAt = -index - 1;
+            Node created = new Node();
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newLabels[insertAt] = label;
+            newChildren[insertAt] = created;
+            System.arraycopy(labels, insertAt, newLabels, insertAt + 1, labels.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            labels = newLabels;
+            children = newChildren;
+            return created;
+        }
+
+        void removeChild(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            if (index < 0) {
+                return;
+            }
+            char[] newLabels = new char[labels.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(labels, 0, newLabels, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(labels, index + 1, newLabels, index, labels.length - index - 1);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+            labels = newLabels.length > 0 ? newLabels : NO_LABELS;
+            children = newChildren.length > 0 ? newChildren : NO_CHILDREN;
+        }
+
+        void addEntry(Entry entry) {
+            removeEntry(entry.ownerId());
+            Entry[] newEntries = Arrays.copyOf(entries, entries.length + 1);
+            newEntries[entries.length] = entry;
+            entries = newEntries;
+        }
+
+        boolean removeEntry(long ownerId) {
+            for (int i = 0; i < entries.length; i++) {
+                if (entries[i].ownerId() == ownerId) {
+                    Entry[] newEntries = new Entry[entries.length - 1];
+                    System.arraycopy(entries, 0, newEntries, 0, i);
+                    System.arraycopy(entries, i + 1, newEntries, i, entries.length - i - 1);
+                    entries = newEntries.length > 0 ? newEntries : NO_ENTRIES;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void recomputeWeight() {
+            int max = Integer.MIN_VALUE;
+            for (Entry entry : entries) {
+                max = Math.max(max, entry.weight());
+            }
+            for (Node child : children) {
+                max = Math.max(max, child.maxWeight);
+            }
+            maxWeight = max;
+        }
+    }
+}
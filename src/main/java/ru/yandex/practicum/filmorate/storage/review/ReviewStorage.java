@@ -2,6 +2,7 @@ package ru.yandex.practicum.filmorate.storage.review;
 
 import ru.yandex.practicum.filmorate.model.Review;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ReviewStorage {
@@ -13,13 +14,26 @@ public interface ReviewStorage {
 
     Review getById(int id);
 
+    List<Review> getByIds(Collection<Integer> ids);
+
+    boolean exists(int id);
+
+    // отзывы удаляются каскадно вместе с фильмом или пользователем в обход хранилища:
+    // их id читаются до удаления и после него убираются из реестра
+    List<Integer> getIdsByFilmId(int filmId);
+
+    List<Integer> getIdsByUserId(int userId);
+
+    void forgetDeleted(Collection<Integer> ids);
+
     List<Review> getReviewsByFilmId(Integer filmId, int count);
 
-    void addLike(int reviewId, int userId);
+    // голосование возвращает изменение и новое значение useful
+    UsefulChange addLike(int reviewId, int userId);
 
-    void addDislike(int reviewId, int userId);
+    UsefulChange addDislike(int reviewId, int userId);
 
-    void removeLike(int reviewId, int userId);
+    UsefulChange removeLike(int reviewId, int userId);
 
-    void removeDislike(int reviewId, int userId);
+    UsefulChange removeDislike(int reviewId, int userId);
 }
\ No newline at end of file
@@ -0,0 +1,5 @@
+package ru.yandex.practicum.filmorate.storage.review;
+
+// Результат голосования за отзыв: на сколько изменилась полезность и её новое значение
+public record UsefulChange(int delta, int useful) {
+}
@@ -1,9 +1,12 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.model.PageCursor;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface UserStorage {
 
@@ -15,9 +18,15 @@ public interface UserStorage {
 
     void deleteUser(int id);
 
+    boolean exists(int id);
+
     Collection<User> getAll();
 
+    void streamAll(Consumer<User> consumer);
+
     User getById(int id);
 
     List<User> getUsersByIds(List<Integer> ids);
+
+    Page<User> getUsersPage(PageCursor after, int limit);
 }
\ No newline at end of file
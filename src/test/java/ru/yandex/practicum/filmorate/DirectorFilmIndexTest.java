@@ -0,0 +1,78 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.index.DirectorFilmIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmPopularityIndex;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.TestFilms.film;
+
+class DirectorFilmIndexTest {
+
+    private static final Director NOLAN = Director.builder().id(1).name("Christopher Nolan").build();
+    private static final Director VILLENEUVE = Director.builder().id(2).name("Denis Villeneuve").build();
+
+    private final FilmPopularityIndex popularityIndex = new FilmPopularityIndex(null);
+    private final DirectorFilmIndex index = new DirectorFilmIndex(popularityIndex);
+
+    @BeforeEach
+    void setUp() {
+        List<Film> films = List.of(
+                film(1, 2014).directors(Set.of(NOLAN)).build(),
+                film(2, 2010).directors(Set.of(NOLAN)).build(),
+                film(3, 2021).directors(Set.of(NOLAN, VILLENEUVE)).build(),
+                film(4, 2016).directors(Set.of()).build());
+        films.forEach(popularityIndex::addFilm);
+        popularityIndex.incrementLikes(1);
+        index.load(films);
+    }
+
+    @Test
+    void getFilmIds_ShouldSortByYearOrByLikes() {
+        assertThat(index.getFilmIds(NOLAN.getId(), "year")).containsExactly(2, 1, 3);
+        assertThat(index.getFilmIds(NOLAN.getId(), "likes")).containsExactly(1, 2, 3);
+        assertThat(index.getFilmIds(VILLENEUVE.getId(), "year")).containsExactly(3);
+        assertThat(index.getFilmIds(99, "year")).isEmpty();
+    }
+
+    @Test
+    void likesChanged_ShouldReorderLikesView() {
+        popularityIndex.incrementLikes(3);
+        popularityIndex.incrementLikes(3);
+        popularityIndex.incrementLikes(4);
+
+        assertThat(index.getFilmIds(NOLAN.getId(), "likes")).containsExactly(3, 1, 2);
+        assertThat(index.getFilmIds(NOLAN.getId(), "year")).containsExactly(2, 1, 3);
+    }
+
+    @Test
+    void updateFilm_ShouldMoveFilmBetweenDirectors() {
+        Film moved = film(2, 2010).directors(Set.of(VILLENEUVE)).build();
+        popularityIndex.updateFilm(moved);
+        index.updateFilm(moved);
+
+        assertThat(index.getFilmIds(NOLAN.getId(), "year")).containsExactly(1, 3);
+        assertThat(index.getFilmIds(VILLENEUVE.getId(), "year")).containsExactly(2, 3);
+    }
+
+    @Test
+    void removeFilmAndDirector_ShouldCleanViews() {
+        index.removeFilm(1);
+        assertThat(index.getFilmIds(NOLAN.getId(), "likes")).containsExactly(2, 3);
+
+        index.removeDirector(NOLAN.getId());
+        assertThat(index.getFilmIds(NOLAN.getId(), "year")).isEmpty();
+        assertThat(index.getFilmIds(VILLENEUVE.getId(), "year")).containsExactly(3);
+
+        // после удаления режиссёра изменение лайков не должно вернуть фильм в его выборку
+        popularityIndex.incrementLikes(3);
+        assertThat(index.getFilmIds(NOLAN.getId(), "likes")).isEmpty();
+        assertThat(index.getFilmIds(VILLENEUVE.getId(), "likes")).containsExactly(3);
+    }
+}
@@ -0,0 +1,160 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import ru.yandex.practicum.filmorate.model.EventType;
+import ru.yandex.practicum.filmorate.model.FeedEvent;
+import ru.yandex.practicum.filmorate.model.OperationType;
+import ru.yandex.practicum.filmorate.service.FeedEventPipeline;
+import ru.yandex.practicum.filmorate.storage.dao.FeedDao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FeedEventPipelineTest {
+
+    private final RecordingFeedDao feedDao = new RecordingFeedDao();
+    private FeedEventPipeline pipeline;
+
+    @AfterEach
+    void tearDown() {
+        if (pipeline != null) {
+            pipeline.shutdown();
+        }
+    }
+
+    @Test
+    void submit_ShouldAssignIdsAfterStoredMaximum() {
+        feedDao.maxEventId = 41;
+        pipeline = start(10, 100, 60000);
+
+        FeedEvent first = event(1);
+        FeedEvent second = event(2);
+        pipeline.submit(first);
+        pipeline.submit(second);
+
+        assertThat(first.getEventId()).isEqualTo(42);
+        assertThat(second.getEventId()).isEqualTo(43);
+    }
+
+    @Test
+    void getPendingEvents_ShouldReturnUnwrittenEventsOfUserInOrder() {
+        pipeline = start(10, 100, 60000);
+        pipeline.submit(event(1));
+        pipeline.submit(event(2));
+        pipeline.submit(event(1));
+
+        assertThat(pipeline.getPendingEvents(1)).extracting(FeedEvent::getEventId).containsExactly(1, 3);
+
+        pipeline.flush();
+
+        assertThat(pipeline.getPendingEvents(1)).isEmpty();
+        assertThat(feedDao.written).extracting(FeedEvent::getEventId).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void flush_ShouldWriteInBatchesOfConfiguredSize() {
+        pipeline = start(2, 100, 60000);
+        for (int i = 0; i < 5; i++) {
+            pipeline.submit(event(1));
+        }
+
+        pipeline.flush();
+
+        assertThat(feedDao.batchSizes).containsExactly(2, 2, 1);
+    }
+
+    @Test
+    void submit_ShouldFlushItselfWhenQueueIsFull() {
+        pipeline = start(10, 2, 60000);
+        for (int i = 0; i < 3; i++) {
+            pipeline.submit(event(1));
+        }
+
+        assertThat(feedDao.written).hasSize(2);
+        assertThat(pipeline.getPendingEvents(1)).hasSize(1);
+    }
+
+    @Test
+    void flush_ShouldWriteOneByOneAndDropRejectedEvents() {
+        pipeline = start(10, 100, 60000);
+        feedDao.rejectedUserId = 2;
+        pipeline.submit(event(1));
+        pipeline.submit(event(2));
+        pipeline.submit(event(1));
+
+        pipeline.flush();
+
+        assertThat(feedDao.written).extracting(FeedEvent::getEventId).containsExactly(1, 3);
+        assertThat(pipeline.getPendingEvents(2)).isEmpty();
+    }
+
+    @Test
+    void init_ShouldFlushInBackgroundOnOwnThread() throws InterruptedException {
+        pipeline = start(10, 100, 10);
+        pipeline.submit(event(1));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (feedDao.written.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(feedDao.written).hasSize(1);
+        assertThat(feedDao.writerThreads).containsOnly("feed-flusher");
+    }
+
+    private FeedEventPipeline start(int batchSize, int capacity, long flushIntervalMs) {
+        FeedEventPipeline started = new FeedEventPipeline(feedDao, batchSize, capacity, 10, flushIntervalMs);
+        started.init();
+        return started;
+    }
+
+    private FeedEvent event(int userId) {
+        return FeedEvent.builder()
+                .timestamp(System.currentTimeMillis())
+                .userId(userId)
+                .eventType(EventType.LIKE)
+                .operationType(OperationType.ADD)
+                .entityId(1)
+                .build();
+    }
+
+    private static class RecordingFeedDao extends FeedDao {
+        private final List<FeedEvent> written = new CopyOnWriteArrayList<>();
+        private final List<Integer> batchSizes = new ArrayList<>();
+        private final List<String> writerThreads = new CopyOnWriteArrayList<>();
+        private int maxEventId;
+        private int rejectedUserId = -1;
+
+        RecordingFeedDao() {
+            super(null);
+        }
+
+        @Override
+        public void addEvent(FeedEvent event) {
+            if (event.getUserId() == rejectedUserId) {
+                throw new DataIntegrityViolationException("Пользователь не найден");
+            }
+            written.add(event);
+            writerThreads.add(Thread.currentThread().getName());
+        }
+
+        @Override
+        public void addEvents(List<FeedEvent> events) {
+            if (events.stream().anyMatch(event -> event.getUserId() == rejectedUserId)) {
+                throw new DataIntegrityViolationException("Пользователь не найден");
+            }
+            batchSizes.add(events.size());
+            events.forEach(this::addEvent);
+        }
+
+        @Override
+        public int getMaxEventId() {
+            return maxEventId;
+        }
+    }
+}
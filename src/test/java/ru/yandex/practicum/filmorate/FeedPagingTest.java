@@ -0,0 +1,134 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.EventType;
+import ru.yandex.practicum.filmorate.model.FeedEvent;
+import ru.yandex.practicum.filmorate.model.OperationType;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FeedEventPipeline;
+import ru.yandex.practicum.filmorate.service.FeedService;
+import ru.yandex.practicum.filmorate.storage.dao.FeedDao;
+import ru.yandex.practicum.filmorate.storage.dao.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@Import({FeedDao.class, UserDbStorage.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class FeedPagingTest {
+
+    private final FeedDao feedDao;
+    private final UserDbStorage userStorage;
+
+    private FeedEventPipeline pipeline;
+    private FeedService feedService;
+    private int userId;
+    private int otherUserId;
+
+    @BeforeEach
+    void setUp() {
+        userId = createUser("feed@example.com", "feed");
+        otherUserId = createUser("other@example.com", "other");
+        for (int eventId = 1; eventId <= 5; eventId++) {
+            feedDao.addEvent(event(eventId, userId));
+        }
+        feedDao.addEvent(event(6, otherUserId));
+
+        // интервал записи больше времени теста: отправленные события остаются в буфере
+        pipeline = new FeedEventPipeline(feedDao, 100, 1000, 50, 60000);
+        pipeline.init();
+        feedService = new FeedService(feedDao, pipeline, userStorage);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    void getEventsPage_ShouldPageForwardAfterId() {
+        assertThat(ids(feedDao.getEventsPage(userId, null, null, 2))).containsExactly(1, 2);
+        assertThat(ids(feedDao.getEventsPage(userId, 2, null, 2))).containsExactly(3, 4);
+        assertThat(ids(feedDao.getEventsPage(userId, 4, null, 2))).containsExactly(5);
+        assertThat(feedDao.getEventsPage(userId, 5, null, 2)).isEmpty();
+    }
+
+    @Test
+    void getEventsPage_ShouldReturnPageAdjacentToBeforeInAscendingOrder() {
+        assertThat(ids(feedDao.getEventsPage(userId, null, 5, 2))).containsExactly(3, 4);
+        assertThat(ids(feedDao.getEventsPage(userId, null, 3, 10))).containsExactly(1, 2);
+        assertThat(ids(feedDao.getEventsPage(userId, 1, 5, 10))).containsExactly(2, 3, 4);
+        assertThat(ids(feedDao.getEventsPage(userId, 1, 5, 2))).containsExactly(2, 3);
+    }
+
+    @Test
+    void getUserFeedPage_ShouldMergePendingEventsIntoStoredPage() {
+        pipeline.submit(pendingEvent(userId));
+        pipeline.submit(pendingEvent(otherUserId));
+        pipeline.submit(pendingEvent(userId));
+
+        assertThat(ids(pipeline.getPendingEvents(userId))).containsExactly(7, 9);
+        assertThat(ids(feedService.getUserFeedPage(userId, 4, null, 10))).containsExactly(5, 7, 9);
+        assertThat(ids(feedService.getUserFeedPage(userId, 4, null, 2))).containsExactly(5, 7);
+        assertThat(ids(feedService.getUserFeedPage(userId, 7, null, 10))).containsExactly(9);
+    }
+
+    @Test
+    void getUserFeedPage_ShouldPageBackwardsThroughPendingAndStoredEvents() {
+        pipeline.submit(pendingEvent(userId));
+        pipeline.submit(pendingEvent(userId));
+
+        assertThat(ids(feedService.getUserFeedPage(userId, null, 100, 3))).containsExactly(5, 7, 8);
+        assertThat(ids(feedService.getUserFeedPage(userId, null, 8, 3))).containsExactly(4, 5, 7);
+        assertThat(ids(feedService.getUserFeedPage(userId, null, 5, 3))).containsExactly(2, 3, 4);
+    }
+
+    @Test
+    void getUserFeedPage_ShouldRejectLimitOutOfRange() {
+        assertThatThrownBy(() -> feedService.getUserFeedPage(userId, null, null, 0))
+                .isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> feedService.getUserFeedPage(userId, null, null, 1001))
+                .isInstanceOf(ValidationException.class);
+    }
+
+    private int createUser(String email, String login) {
+        return userStorage.create(User.builder()
+                .email(email)
+                .login(login)
+                .name(login)
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build()).getId();
+    }
+
+    private FeedEvent event(int eventId, int ownerId) {
+        return FeedEvent.builder()
+                .eventId(eventId)
+                .timestamp(1000L + eventId)
+                .userId(ownerId)
+                .eventType(EventType.LIKE)
+                .operationType(OperationType.ADD)
+                .entityId(1)
+                .build();
+    }
+
+    private FeedEvent pendingEvent(int ownerId) {
+        return event(0, ownerId);
+    }
+
+    private static List<Integer> ids(List<FeedEvent> events) {
+        return events.stream().map(FeedEvent::getEventId).toList();
+    }
+}
@@ -0,0 +1,116 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.cache.FilmCache;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FilmCacheTest {
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void put_ShouldEvictLeastRecentlyReadFilm() {
+        FilmCache cache = new FilmCache(2);
+        cache.put(film(1));
+        cache.put(film(2));
+        cache.get(1);
+        cache.put(film(3));
+
+        assertThat(cache.get(2)).isNull();
+        assertThat(cache.get(1)).isNotNull();
+        assertThat(cache.get(3)).isNotNull();
+        assertThat(cache.getEvictions()).isEqualTo(1);
+    }
+
+    @Test
+    void get_ShouldReturnCopyAndCountHitsAndMisses() {
+        FilmCache cache = new FilmCache(10);
+        cache.put(film(1));
+
+        Film first = cache.get(1);
+        first.setName("Changed");
+        first.getDirectors().clear();
+
+        Film second = cache.get(1);
+        assertThat(second.getName()).isEqualTo("Film 1");
+        assertThat(second.getDirectors()).hasSize(1);
+        assertThat(cache.get(2)).isNull();
+        assertThat(cache.getHits()).isEqualTo(2);
+        assertThat(cache.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    void put_ShouldBeIgnoredWhenDisabled() {
+        FilmCache cache = new FilmCache(0);
+        cache.put(film(1));
+
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void evictByDirector_ShouldRemoveOnlyFilmsOfDirector() {
+        FilmCache cache = new FilmCache(10);
+        cache.put(film(1));
+        cache.put(Film.builder().id(2).name("Film 2").build());
+
+        cache.evictByDirector(1);
+
+        assertThat(cache.get(1)).isNull();
+        assertThat(cache.get(2)).isNotNull();
+    }
+
+    @Test
+    void put_ShouldSkipCachingInsideWriteTransaction() {
+        FilmCache cache = new FilmCache(10);
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        cache.put(film(1));
+        assertThat(cache.size()).isZero();
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        cache.put(film(1));
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void evict_ShouldRepeatAfterCommit() {
+        FilmCache cache = new FilmCache(10);
+        TransactionSynchronizationManager.initSynchronization();
+        cache.put(film(1));
+
+        cache.evict(1);
+        // параллельный читатель успел закэшировать старую версию до коммита
+        cache.put(film(1));
+        assertThat(cache.size()).isEqualTo(1);
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        assertThat(cache.size()).isZero();
+    }
+
+    private Film film(int id) {
+        LinkedHashSet<Director> directors = new LinkedHashSet<>();
+        directors.add(Director.builder().id(1).name("Director").build());
+        return Film.builder()
+                .id(id)
+                .name("Film " + id)
+                .directors(directors)
+                .build();
+    }
+}
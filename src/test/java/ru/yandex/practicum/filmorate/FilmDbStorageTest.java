@@ -10,16 +10,26 @@ import org.springframework.context.annotation.Import;
 import org.springframework.jdbc.core.JdbcTemplate;
 import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmField;
+import ru.yandex.practicum.filmorate.model.FilmProjection;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.model.PageCursor;
+import ru.yandex.practicum.filmorate.storage.cache.FilmCache;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceDataCache;
 import ru.yandex.practicum.filmorate.storage.dao.DirectorDbStorage;
 import ru.yandex.practicum.filmorate.storage.dao.FilmDbStorage;
 import ru.yandex.practicum.filmorate.storage.dao.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.dao.LikeDao;
 import ru.yandex.practicum.filmorate.storage.dao.MpaDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmHydrationMode;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Set;
 
@@ -27,7 +37,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 @JdbcTest
 @AutoConfigureTestDatabase
-@Import({FilmDbStorage.class, MpaDbStorage.class, GenreDbStorage.class, DirectorDbStorage.class})
+@Import({FilmDbStorage.class, MpaDbStorage.class, GenreDbStorage.class, DirectorDbStorage.class, FilmCache.class,
+        ReferenceDataCache.class, LikeDao.class})
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 class FilmDbStorageTest {
 
@@ -36,6 +47,8 @@ class FilmDbStorageTest {
     private final GenreDbStorage genreStorage;
     private final JdbcTemplate jdbcTemplate;
     private final DirectorDbStorage directorStorage;
+    private final LikeDao likeDao;
+    private final ReferenceDataCache referenceData;
 
     private Film testFilm;
     private Director testDirector;
@@ -90,6 +103,25 @@ class FilmDbStorageTest {
                 .containsExactly(newDirector.getId());
     }
 
+    @Test
+    void updateFilm_ShouldReplaceOnlyChangedGenres() {
+        Film createdFilm = filmStorage.create(testFilm.toBuilder()
+                .genres(Set.of(genreStorage.getById(1), genreStorage.getById(2)))
+                .build());
+
+        filmStorage.update(createdFilm.toBuilder()
+                .genres(Set.of(genreStorage.getById(2), genreStorage.getById(3)))
+                .build());
+
+        List<Integer> storedGenreIds = jdbcTemplate.queryForList(
+                "SELECT genre_id FROM film_genres WHERE film_id = ? ORDER BY genre_id", Integer.class,
+                createdFilm.getId());
+        assertThat(storedGenreIds).containsExactly(2, 3);
+        assertThat(filmStorage.getById(createdFilm.getId()).getGenres())
+                .extracting(Genre::getId)
+                .containsExactly(2, 3);
+    }
+
     @Test
     void getById_ShouldReturnFilmWithDirectors() {
         Film createdFilm = filmStorage.create(testFilm);
@@ -119,6 +151,79 @@ class FilmDbStorageTest {
                 );
     }
 
+    @Test
+    void streamAll_ShouldEmitFilmsInIdOrderWithGenresAndDirectors() {
+        Film film1 = filmStorage.create(testFilm);
+        Film film2 = filmStorage.create(testFilm.toBuilder()
+                .name("Another Film")
+                .directors(Collections.emptySet())
+                .build());
+
+        List<Film> films = new ArrayList<>();
+        filmStorage.streamAll(films::add);
+
+        assertThat(films).extracting(Film::getId).containsExactly(film1.getId(), film2.getId());
+        assertThat(films.get(0).getGenres()).hasSize(1);
+        assertThat(films.get(0).getDirectors()).containsExactly(testDirector);
+        assertThat(films.get(1).getDirectors()).isEmpty();
+    }
+
+    @Test
+    void arrayAggMode_ShouldReturnSameFilmsAsSeparateQueries() {
+        Film film1 = filmStorage.create(testFilm.toBuilder()
+                .genres(Set.of(genreStorage.getById(1), genreStorage.getById(2)))
+                .build());
+        filmStorage.create(testFilm.toBuilder()
+                .name("Another Film")
+                .genres(Collections.emptySet())
+                .directors(Collections.emptySet())
+                .build());
+        FilmDbStorage aggregatedStorage = new FilmDbStorage(jdbcTemplate, referenceData, new FilmCache(0),
+                FilmHydrationMode.ARRAY_AGG);
+
+        assertThat(aggregatedStorage.getAll()).containsExactlyInAnyOrderElementsOf(filmStorage.getAll());
+        assertThat(aggregatedStorage.getById(film1.getId()).getGenres())
+                .extracting(Genre::getId)
+                .containsExactly(1, 2);
+        assertThat(aggregatedStorage.getById(film1.getId()).getDirectors()).containsExactly(testDirector);
+    }
+
+    @Test
+    void hydrationMode_ShouldBeSelectablePerCall() {
+        Film film1 = filmStorage.create(testFilm.toBuilder()
+                .genres(Set.of(genreStorage.getById(1), genreStorage.getById(2)))
+                .build());
+        Film film2 = filmStorage.create(testFilm.toBuilder().name("Another Film").build());
+        Set<Integer> ids = Set.of(film1.getId(), film2.getId());
+
+        assertThat(filmStorage.getAll(FilmHydrationMode.ARRAY_AGG))
+                .containsExactlyInAnyOrderElementsOf(filmStorage.getAll(FilmHydrationMode.SEPARATE_QUERIES));
+        assertThat(filmStorage.getByIds(ids, FilmHydrationMode.ARRAY_AGG))
+                .containsExactlyInAnyOrderElementsOf(filmStorage.getByIds(ids, FilmHydrationMode.SEPARATE_QUERIES));
+    }
+
+    @Test
+    void getFilmsPage_ShouldFollowCursorAndSkipUnrequestedFields() {
+        Film film1 = filmStorage.create(testFilm);
+        Film film2 = filmStorage.create(testFilm.toBuilder().name("Second Film").build());
+        Film film3 = filmStorage.create(testFilm.toBuilder().name("Third Film").build());
+        Set<FilmField> fields = EnumSet.of(FilmField.ID, FilmField.NAME, FilmField.MPA);
+
+        Page<FilmProjection> firstPage = filmStorage.getFilmsPage(null, 2, fields);
+        Page<FilmProjection> secondPage = filmStorage.getFilmsPage(PageCursor.decode(firstPage.getNextCursor()), 2,
+                fields);
+
+        assertThat(firstPage.getItems()).extracting(FilmProjection::getId)
+                .containsExactly(film1.getId(), film2.getId());
+        assertThat(firstPage.getItems().get(0).getMpa().getId()).isEqualTo(1);
+        assertThat(firstPage.getItems().get(0).getDuration()).isNull();
+        assertThat(firstPage.getItems().get(0).getDescription()).isNull();
+        assertThat(firstPage.getItems().get(0).getGenres()).isNull();
+        assertThat(firstPage.getItems().get(0).getDirectors()).isNull();
+        assertThat(secondPage.getItems()).extracting(FilmProjection::getName).containsExactly(film3.getName());
+        assertThat(secondPage.getNextCursor()).isNull();
+    }
+
     @Test
     void updateFilm_ShouldUpdateDirectors() {
         Film createdFilm = filmStorage.create(testFilm);
@@ -183,6 +288,7 @@ class FilmDbStorageTest {
         jdbcTemplate.update("INSERT INTO likes (film_id, user_id) VALUES (?, ?)", film1.getId(), 1);
         jdbcTemplate.update("INSERT INTO likes (film_id, user_id) VALUES (?, ?)", film1.getId(), 2);
         jdbcTemplate.update("INSERT INTO likes (film_id, user_id) VALUES (?, ?)", film2.getId(), 1);
+        likeDao.reconcileLikeCounts();
 
         int genreId = testFilm.getGenres().iterator().next().getId();
         int year = testFilm.getReleaseDate().getYear();
@@ -210,6 +316,7 @@ class FilmDbStorageTest {
         jdbcTemplate.update("INSERT INTO likes (film_id, user_id) VALUES (?, ?)", film2.getId(), 1);
         jdbcTemplate.update("INSERT INTO likes (film_id, user_id) VALUES (?, ?)", film2.getId(), 2);
         jdbcTemplate.update("INSERT INTO likes (film_id, user_id) VALUES (?, ?)", film3.getId(), 2);
+        likeDao.reconcileLikeCounts();
 
         List<Film> commonFilms = filmStorage.getCommonFilms(1, 2);
 
@@ -272,6 +379,7 @@ class FilmDbStorageTest {
         jdbcTemplate.update("INSERT INTO likes (film_id, user_id) VALUES (?, ?)", film1.getId(), 1);
         jdbcTemplate.update("INSERT INTO likes (film_id, user_id) VALUES (?, ?)", film3.getId(), 1);
         jdbcTemplate.update("INSERT INTO likes (film_id, user_id) VALUES (?, ?)", film3.getId(), 2);
+        likeDao.reconcileLikeCounts();
 
         List<Film> byTitle = filmStorage.searchFilms("test", true, false);
         assertThat(byTitle)
@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmPatch;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FilmPatchTest {
+
+    private final Film film = Film.builder()
+            .id(1)
+            .name("Film")
+            .description("Description")
+            .releaseDate(LocalDate.of(2000, 1, 1))
+            .duration(120)
+            .mpa(MpaRating.builder().id(1).name("G").build())
+            .genres(Set.of(Genre.builder().id(1).name("Комедия").build()))
+            .directors(Set.of(Director.builder().id(1).name("Director").build()))
+            .build();
+
+    @Test
+    void applyTo_ShouldKeepFieldsMissingFromPatch() {
+        FilmPatch patch = new FilmPatch();
+        patch.setName("New name");
+        patch.setDuration(90);
+
+        Film merged = patch.applyTo(film);
+
+        assertThat(merged.getId()).isEqualTo(1);
+        assertThat(merged.getName()).isEqualTo("New name");
+        assertThat(merged.getDuration()).isEqualTo(90);
+        assertThat(merged.getDescription()).isEqualTo("Description");
+        assertThat(merged.getReleaseDate()).isEqualTo(LocalDate.of(2000, 1, 1));
+        assertThat(merged.getMpa().getId()).isEqualTo(1);
+        assertThat(merged.getGenres()).extracting(Genre::getId).containsExactly(1);
+        assertThat(merged.getDirectors()).extracting(Director::getId).containsExactly(1);
+    }
+
+    @Test
+    void applyTo_ShouldReplaceCollectionsIncludingWithEmpty() {
+        FilmPatch patch = new FilmPatch();
+        patch.setGenres(Set.of(Genre.builder().id(2).name("Драма").build()));
+        patch.setDirectors(Set.of());
+        patch.setMpa(MpaRating.builder().id(3).name("PG-13").build());
+
+        Film merged = patch.applyTo(film);
+
+        assertThat(merged.getGenres()).extracting(Genre::getId).containsExactly(2);
+        assertThat(merged.getDirectors()).isEmpty();
+        assertThat(merged.getMpa().getId()).isEqualTo(3);
+    }
+
+    @Test
+    void applyTo_ShouldNotChangeCurrentFilm() {
+        FilmPatch patch = new FilmPatch();
+        patch.setName("Not saved");
+        patch.setDirectors(Set.of());
+
+        patch.applyTo(film);
+
+        assertThat(film.getName()).isEqualTo("Film");
+        assertThat(film.getDirectors()).extracting(Director::getId).containsExactly(1);
+    }
+
+    @Test
+    void applyTo_ShouldReturnEqualFilmForEmptyPatch() {
+        assertThat(new FilmPatch().applyTo(film)).isEqualTo(film);
+    }
+}
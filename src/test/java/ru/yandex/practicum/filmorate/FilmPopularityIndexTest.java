@@ -0,0 +1,98 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.index.FilmPopularityIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.TestFilms.film;
+
+class FilmPopularityIndexTest {
+
+    private static final Genre COMEDY = Genre.builder().id(1).name("Комедия").build();
+    private static final Genre DRAMA = Genre.builder().id(2).name("Драма").build();
+
+    private final FilmPopularityIndex index = new FilmPopularityIndex(null);
+
+    @BeforeEach
+    void setUp() {
+        index.addFilm(film(1, 2000).genres(Set.of(COMEDY)).build());
+        index.addFilm(film(2, 2000).genres(Set.of(DRAMA)).build());
+        index.addFilm(film(3, 2010).genres(Set.of(COMEDY, DRAMA)).build());
+        index.addFilm(film(4, 2010).build());
+        like(3, 3);
+        like(1, 2);
+        like(2, 2);
+    }
+
+    @Test
+    void getTopFilmIds_ShouldOrderByLikesThenId() {
+        assertThat(index.getTopFilmIds(10, null, null)).containsExactly(3, 1, 2, 4);
+        assertThat(index.getTopFilmIds(2, null, null)).containsExactly(3, 1);
+    }
+
+    @Test
+    void getTopFilmIds_ShouldFilterByGenreAndYear() {
+        assertThat(index.getTopFilmIds(10, COMEDY.getId(), null)).containsExactly(3, 1);
+        assertThat(index.getTopFilmIds(10, null, 2010)).containsExactly(3, 4);
+        assertThat(index.getTopFilmIds(10, DRAMA.getId(), 2000)).containsExactly(2);
+        assertThat(index.getTopFilmIds(10, 99, null)).isEmpty();
+    }
+
+    @Test
+    void changeLikes_ShouldReorderAndNotGoBelowZero() {
+        like(4, 4);
+        index.decrementLikes(3);
+        index.decrementLikes(2);
+        index.decrementLikes(2);
+        index.decrementLikes(2);
+
+        assertThat(index.getLikes(4)).isEqualTo(4);
+        assertThat(index.getLikes(2)).isZero();
+        assertThat(index.getTopFilmIds(10, null, null)).containsExactly(4, 1, 3, 2);
+        assertThat(index.getTopFilmIds(10, null, 2010)).containsExactly(4, 3);
+    }
+
+    @Test
+    void updateFilm_ShouldKeepLikesAndMoveBetweenSlices() {
+        index.updateFilm(film(1, 2010).genres(Set.of(DRAMA)).build());
+
+        assertThat(index.getLikes(1)).isEqualTo(2);
+        assertThat(index.getTopFilmIds(10, COMEDY.getId(), null)).containsExactly(3);
+        assertThat(index.getTopFilmIds(10, DRAMA.getId(), 2010)).containsExactly(3, 1);
+        assertThat(index.getTopFilmIds(10, null, 2000)).containsExactly(2);
+    }
+
+    @Test
+    void removeFilm_ShouldDropItFromAllRankings() {
+        index.removeFilm(3);
+        index.incrementLikes(3);
+
+        assertThat(index.getLikes(3)).isZero();
+        assertThat(index.getTopFilmIds(10, null, null)).containsExactly(1, 2, 4);
+        assertThat(index.getTopFilmIds(10, DRAMA.getId(), null)).containsExactly(2);
+    }
+
+    @Test
+    void listeners_ShouldReceiveNewLikeCount() {
+        List<String> changes = new ArrayList<>();
+        index.addListener(filmId -> changes.add(filmId + ":" + index.getLikes(filmId)));
+
+        index.incrementLikes(4);
+        index.decrementLikes(1);
+        index.incrementLikes(99);
+
+        assertThat(changes).containsExactly("4:1", "1:1");
+    }
+
+    private void like(int filmId, int times) {
+        for (int i = 0; i < times; i++) {
+            index.incrementLikes(filmId);
+        }
+    }
+}
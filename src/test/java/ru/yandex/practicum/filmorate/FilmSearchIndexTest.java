@@ -0,0 +1,71 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.TestFilms.film;
+
+class FilmSearchIndexTest {
+
+    private final FilmPopularityIndex popularityIndex = new FilmPopularityIndex(null);
+    private final FilmSearchIndex searchIndex = new FilmSearchIndex(popularityIndex);
+
+    private final Director nolan = Director.builder().id(1).name("Christopher Nolan").build();
+    private final Director villeneuve = Director.builder().id(2).name("Denis Villeneuve").build();
+
+    @BeforeEach
+    void setUp() {
+        Film inception = film(1, 2010).name("Inception").directors(Set.of(nolan)).build();
+        Film interstellar = film(2, 2010).name("Interstellar").directors(Set.of(nolan)).build();
+        Film dune = film(3, 2010).name("Dune").directors(Set.of(villeneuve)).build();
+        List.of(inception, interstellar, dune).forEach(popularityIndex::addFilm);
+        searchIndex.load(List.of(inception, interstellar, dune), List.of(nolan, villeneuve));
+
+        popularityIndex.incrementLikes(2);
+        popularityIndex.incrementLikes(2);
+        popularityIndex.incrementLikes(1);
+    }
+
+    @Test
+    void search_ShouldMatchSubstringIgnoringCaseAndOrderByLikes() {
+        assertThat(searchIndex.search("IN", true, false)).containsExactly(2, 1);
+        assertThat(searchIndex.search("stell", true, false)).containsExactly(2);
+        assertThat(searchIndex.search("une", true, false)).containsExactly(3);
+        assertThat(searchIndex.search("matrix", true, false)).isEmpty();
+    }
+
+    @Test
+    void search_ShouldNotMatchTrigramsThatAreNotAdjacent() {
+        // все триграммы запроса есть в "Interstellar", но подряд они не идут
+        assertThat(searchIndex.search("intell", true, false)).isEmpty();
+    }
+
+    @Test
+    void search_ShouldFindFilmsByDirectorAndCombineWithTitle() {
+        assertThat(searchIndex.search("nolan", false, true)).containsExactly(2, 1);
+        assertThat(searchIndex.search("nolan", true, false)).isEmpty();
+        assertThat(searchIndex.search("dune", true, true)).containsExactly(3);
+        assertThat(searchIndex.search("ne", true, true)).containsExactly(3);
+    }
+
+    @Test
+    void updateAndRemove_ShouldReindexFilmsAndDirectors() {
+        searchIndex.updateFilm(film(3, 2010).name("Arrival").directors(Set.of(villeneuve)).build());
+        assertThat(searchIndex.search("dune", true, false)).isEmpty();
+        assertThat(searchIndex.search("arriv", true, false)).containsExactly(3);
+
+        searchIndex.removeDirector(nolan.getId());
+        assertThat(searchIndex.search("nolan", false, true)).isEmpty();
+
+        searchIndex.removeFilm(2);
+        assertThat(searchIndex.search("in", true, false)).containsExactly(1);
+    }
+}
@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmSuggestIndex;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.TestFilms.film;
+
+class FilmSuggestIndexTest {
+
+    private static final Director NOLAN = Director.builder().id(1).name("Christopher Nolan").build();
+    private static final Director VILLENEUVE = Director.builder().id(2).name("Denis Villeneuve").build();
+
+    private final FilmPopularityIndex popularityIndex = new FilmPopularityIndex(null);
+    private final FilmSuggestIndex index = new FilmSuggestIndex(popularityIndex);
+
+    @BeforeEach
+    void setUp() {
+        List<Film> films = List.of(
+                film(1, 2010).name("Inception").directors(Set.of(NOLAN)).build(),
+                film(2, 2014).name("Interstellar").directors(Set.of(NOLAN)).build(),
+                film(3, 2002).name("Insomnia").build(),
+                film(4, 2021).name("Dune").directors(Set.of(VILLENEUVE)).build());
+        films.forEach(popularityIndex::addFilm);
+        like(2, 3);
+        like(1, 1);
+        like(4, 2);
+        index.load(films, List.of(NOLAN, VILLENEUVE));
+    }
+
+    @Test
+    void suggest_ShouldOrderTitlesByLikesIgnoringCase() {
+        assertThat(index.suggest("in", 10)).containsExactly("Interstellar", "Inception", "Insomnia");
+        assertThat(index.suggest("IN", 2)).containsExactly("Interstellar", "Inception");
+        assertThat(index.suggest("matrix", 10)).isEmpty();
+    }
+
+    @Test
+    void suggest_ShouldWeighDirectorsBySumOfTheirFilmLikes() {
+        // у Нолана 3 + 1 лайк, поэтому он выше самого популярного фильма
+        assertThat(index.suggest("", 2)).containsExactly("Christopher Nolan", "Interstellar");
+        assertThat(index.suggest("den", 10)).containsExactly("Denis Villeneuve");
+    }
+
+    @Test
+    void likesChanged_ShouldReweighFilmsAndDirectors() {
+        like(3, 5);
+        like(4, 4);
+        popularityIndex.decrementLikes(2);
+
+        assertThat(index.suggest("in", 10)).containsExactly("Insomnia", "Interstellar", "Inception");
+        assertThat(index.suggest("", 3)).containsExactlyInAnyOrder("Denis Villeneuve", "Dune", "Insomnia");
+    }
+
+    @Test
+    void removeFilm_ShouldDropTitleAndLowerDirectorWeight() {
+        index.removeFilm(2);
+        popularityIndex.removeFilm(2);
+
+        assertThat(index.suggest("in", 10)).containsExactly("Inception", "Insomnia");
+        // без «Интерстеллара» у Нолана остался один лайк и он опустился ниже Вильнёва
+        assertThat(index.suggest("", 2)).containsExactlyInAnyOrder("Denis Villeneuve", "Dune");
+    }
+
+    @Test
+    void updateAndRemoveDirector_ShouldReplaceTheirSuggestions() {
+        index.updateDirector(Director.builder().id(VILLENEUVE.getId()).name("Villeneuve").build());
+        assertThat(index.suggest("den", 10)).isEmpty();
+        assertThat(index.suggest("vil", 10)).containsExactly("Villeneuve");
+
+        index.removeDirector(NOLAN.getId());
+        assertThat(index.suggest("chr", 10)).isEmpty();
+        assertThat(index.suggest("inc", 10)).containsExactly("Inception");
+    }
+
+    @Test
+    void updateFilm_ShouldReplaceTitleAndKeepLikes() {
+        index.updateFilm(film(4, 2010).name("Incendies").directors(Set.of(VILLENEUVE)).build());
+
+        assertThat(index.suggest("du", 10)).isEmpty();
+        assertThat(index.suggest("in", 10)).containsExactly("Interstellar", "Incendies", "Inception", "Insomnia");
+    }
+
+    private void like(int filmId, int times) {
+        for (int i = 0; i < times; i++) {
+            popularityIndex.incrementLikes(filmId);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.index.FriendGraph;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FriendGraphTest {
+
+    private final FriendGraph graph = new FriendGraph(null, 100);
+
+    @Test
+    void addFriend_ShouldBeOneDirectionalAndIgnoreRepeats() {
+        graph.addFriend(1, 3);
+        graph.addFriend(1, 2);
+        graph.addFriend(1, 3);
+
+        assertThat(graph.getFriendIds(1)).containsExactly(2, 3);
+        assertThat(graph.getFriendIds(2)).isEmpty();
+    }
+
+    @Test
+    void getCommonFriendIds_ShouldIntersectFriendLists() {
+        graph.addFriend(1, 3);
+        graph.addFriend(1, 4);
+        graph.addFriend(1, 5);
+        graph.addFriend(2, 4);
+        graph.addFriend(2, 5);
+        graph.addFriend(2, 6);
+
+        assertThat(graph.getCommonFriendIds(1, 2)).containsExactly(4, 5);
+        assertThat(graph.getCommonFriendIds(1, 7)).isEmpty();
+    }
+
+    @Test
+    void removeFriend_ShouldDropOnlyThatLink() {
+        graph.addFriend(1, 2);
+        graph.addFriend(1, 3);
+        graph.addFriend(2, 1);
+
+        graph.removeFriend(1, 2);
+        graph.removeFriend(1, 9);
+
+        assertThat(graph.getFriendIds(1)).containsExactly(3);
+        assertThat(graph.getFriendIds(2)).containsExactly(1);
+    }
+
+    @Test
+    void removeUser_ShouldDropLinksInBothDirections() {
+        graph.addFriend(1, 2);
+        graph.addFriend(2, 1);
+        graph.addFriend(3, 1);
+        graph.addFriend(3, 2);
+
+        graph.removeUser(1);
+
+        assertThat(graph.getFriendIds(1)).isEmpty();
+        assertThat(graph.getFriendIds(2)).isEmpty();
+        assertThat(graph.getFriendIds(3)).containsExactly(2);
+    }
+
+    @Test
+    void suggestFriends_ShouldRankFriendsOfFriendsByMutualCount() {
+        graph.addFriend(1, 2);
+        graph.addFriend(1, 3);
+        graph.addFriend(2, 1);
+        graph.addFriend(2, 5);
+        graph.addFriend(2, 4);
+        graph.addFriend(2, 3);
+        graph.addFriend(3, 4);
+
+        // уже добавленные друзья и сам пользователь в подсказки не попадают
+        assertThat(graph.suggestFriends(1, 10)).containsExactly(4, 5);
+        assertThat(graph.suggestFriends(1, 1)).containsExactly(4);
+        assertThat(graph.suggestFriends(4, 10)).isEmpty();
+    }
+
+    @Test
+    void suggestFriends_ShouldStopAfterEdgeBudget() {
+        FriendGraph bounded = new FriendGraph(null, 2);
+        bounded.addFriend(1, 2);
+        bounded.addFriend(1, 3);
+        bounded.addFriend(2, 1);
+        bounded.addFriend(2, 4);
+        bounded.addFriend(2, 5);
+        bounded.addFriend(3, 5);
+
+        // из двух рёбер одно ведёт обратно к пользователю, до друзей второго друга обход не доходит
+        assertThat(bounded.suggestFriends(1, 10)).containsExactly(4);
+    }
+}
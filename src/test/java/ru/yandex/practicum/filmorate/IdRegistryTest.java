@@ -0,0 +1,148 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.storage.index.IdRegistry;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdRegistryTest {
+
+    private final Set<Integer> database = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final AtomicInteger fallbacks = new AtomicInteger();
+    private final IdRegistry registry = new IdRegistry(
+            () -> {
+                loads.incrementAndGet();
+                return List.copyOf(database);
+            },
+            id -> {
+                fallbacks.incrementAndGet();
+                return database.contains(id);
+            });
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void contains_ShouldLoadOnceAndAnswerFromMemory() {
+        database.addAll(Set.of(1, 2));
+
+        assertThat(registry.contains(1)).isTrue();
+        assertThat(registry.contains(2)).isTrue();
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(fallbacks.get()).isZero();
+    }
+
+    @Test
+    void contains_ShouldConfirmMissInDatabaseAndRememberFoundId() {
+        registry.contains(1);
+        database.add(5);
+
+        assertThat(registry.contains(5)).isTrue();
+        assertThat(registry.contains(5)).isTrue();
+        assertThat(registry.contains(6)).isFalse();
+        assertThat(fallbacks.get()).isEqualTo(2);
+    }
+
+    @Test
+    void remove_ShouldNotBeUndoneByReadBeforeDeleteCommits() {
+        database.add(1);
+        registry.contains(1);
+        TransactionSynchronizationManager.initSynchronization();
+
+        // id убран из реестра, но строка в БД ещё видна, пока удаление не зафиксировано
+        registry.remove(1);
+        assertThat(registry.contains(1)).isTrue();
+
+        database.remove(1);
+        assertThat(registry.contains(1)).isFalse();
+    }
+
+    @Test
+    void load_ShouldSkipIdsRemovedBeforeFirstRead() {
+        database.add(1);
+        TransactionSynchronizationManager.initSynchronization();
+
+        registry.remove(1);
+        assertThat(registry.contains(1)).isTrue();
+
+        database.remove(1);
+        assertThat(registry.contains(1)).isFalse();
+    }
+
+    @Test
+    void remove_ShouldRestoreIdWhenDeleteRollsBack() {
+        database.add(1);
+        registry.contains(1);
+        TransactionSynchronizationManager.initSynchronization();
+
+        registry.remove(1);
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        int before = fallbacks.get();
+        assertThat(registry.contains(1)).isTrue();
+        assertThat(fallbacks.get()).isEqualTo(before);
+    }
+
+    @Test
+    void remove_ShouldDropMarkerAfterCommit() {
+        database.add(1);
+        registry.contains(1);
+        TransactionSynchronizationManager.initSynchronization();
+
+        registry.remove(1);
+        database.remove(1);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        TransactionSynchronizationManager.clearSynchronization();
+
+        // метки больше нет: найденный через БД id снова запоминается
+        database.add(1);
+        assertThat(registry.contains(1)).isTrue();
+        int before = fallbacks.get();
+        assertThat(registry.contains(1)).isTrue();
+        assertThat(fallbacks.get()).isEqualTo(before);
+    }
+
+    @Test
+    void remove_ShouldNotKeepMarkerOutsideTransaction() {
+        database.add(1);
+        registry.contains(1);
+
+        database.remove(1);
+        registry.remove(1);
+        assertThat(registry.contains(1)).isFalse();
+
+        database.add(1);
+        assertThat(registry.contains(1)).isTrue();
+        int before = fallbacks.get();
+        assertThat(registry.contains(1)).isTrue();
+        assertThat(fallbacks.get()).isEqualTo(before);
+    }
+
+    @Test
+    void removeAll_ShouldForgetOnlyGivenIds() {
+        database.addAll(Set.of(1, 2, 3));
+        registry.contains(1);
+
+        registry.removeAll(List.of(1, 2));
+        database.removeAll(Set.of(1, 2));
+
+        assertThat(registry.contains(1)).isFalse();
+        assertThat(registry.contains(2)).isFalse();
+        assertThat(registry.contains(3)).isTrue();
+    }
+}
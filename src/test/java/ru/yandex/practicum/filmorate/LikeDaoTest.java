@@ -0,0 +1,86 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.cache.FilmCache;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.storage.dao.*;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@Import({LikeDao.class, FilmDbStorage.class, UserDbStorage.class, MpaDbStorage.class, GenreDbStorage.class,
+        DirectorDbStorage.class, FilmCache.class, ReferenceDataCache.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class LikeDaoTest {
+
+    private final LikeDao likeDao;
+    private final FilmDbStorage filmStorage;
+    private final UserDbStorage userStorage;
+    private final MpaDbStorage mpaStorage;
+    private final JdbcTemplate jdbcTemplate;
+
+    private Film film;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userStorage.create(User.builder()
+                .email("liker@example.com")
+                .login("liker")
+                .name("Liker")
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build());
+
+        film = filmStorage.create(Film.builder()
+                .name("Liked Film")
+                .description("Description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .mpa(mpaStorage.getById(1))
+                .build());
+    }
+
+    @Test
+    void addLike_ShouldReportOnlyFirstInsert() {
+        assertThat(likeDao.addLike(film.getId(), user.getId())).isTrue();
+        assertThat(likeDao.addLike(film.getId(), user.getId())).isFalse();
+
+        assertThat(likeDao.getLikeCounts()).containsEntry(film.getId(), 1);
+    }
+
+    @Test
+    void removeLike_ShouldReportOnlyExistingLike() {
+        likeDao.addLike(film.getId(), user.getId());
+
+        assertThat(likeDao.removeLike(film.getId(), user.getId())).isTrue();
+        assertThat(likeDao.removeLike(film.getId(), user.getId())).isFalse();
+
+        assertThat(likeDao.getFilmIdsByUserId(user.getId())).isEmpty();
+    }
+
+    @Test
+    void likeCount_ShouldFollowLikesAndBeRepairedByReconciliation() {
+        likeDao.addLike(film.getId(), user.getId());
+        assertThat(likeCount()).isEqualTo(1);
+
+        jdbcTemplate.update("DELETE FROM likes WHERE film_id = ?", film.getId());
+        assertThat(likeDao.reconcileLikeCounts()).isEqualTo(1);
+        assertThat(likeCount()).isZero();
+    }
+
+    private int likeCount() {
+        return jdbcTemplate.queryForObject("SELECT like_count FROM films WHERE id = ?", Integer.class, film.getId());
+    }
+}
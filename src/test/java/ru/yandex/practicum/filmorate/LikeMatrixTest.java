@@ -0,0 +1,105 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.index.IntCounter;
+import ru.yandex.practicum.filmorate.storage.index.LikeMatrix;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LikeMatrixTest {
+
+    private final LikeMatrix likeMatrix = new LikeMatrix(null);
+
+    @Test
+    void addLike_ShouldKeepRowsSortedAndIgnoreRepeats() {
+        likeMatrix.addLike(1, 30);
+        likeMatrix.addLike(1, 10);
+        likeMatrix.addLike(1, 20);
+        likeMatrix.addLike(1, 10);
+
+        assertThat(likeMatrix.getFilmIds(1)).containsExactly(10, 20, 30);
+        assertThat(likeMatrix.getUserIds()).containsExactly(1);
+    }
+
+    @Test
+    void getFilmIds_ShouldReturnCopyUnaffectedByLaterLikes() {
+        likeMatrix.addLike(1, 10);
+        int[] before = likeMatrix.getFilmIds(1);
+
+        likeMatrix.addLike(1, 5);
+
+        assertThat(before).containsExactly(10);
+        assertThat(likeMatrix.getFilmIds(1)).containsExactly(5, 10);
+    }
+
+    @Test
+    void removeLike_ShouldDropEmptyRows() {
+        likeMatrix.addLike(1, 10);
+        likeMatrix.removeLike(1, 10);
+        likeMatrix.removeLike(2, 10);
+
+        assertThat(likeMatrix.getFilmIds(1)).isEmpty();
+        assertThat(likeMatrix.getUserIds()).isEmpty();
+    }
+
+    @Test
+    void removeUserAndFilm_ShouldCleanBothDirections() {
+        likeMatrix.addLike(1, 10);
+        likeMatrix.addLike(2, 10);
+        likeMatrix.addLike(2, 20);
+
+        likeMatrix.removeUser(2);
+        assertThat(likeMatrix.findSimilarUsers(1, 10)).isEmpty();
+
+        likeMatrix.addLike(3, 10);
+        likeMatrix.removeFilm(10);
+        assertThat(likeMatrix.getFilmIds(1)).isEmpty();
+        assertThat(likeMatrix.getFilmIds(3)).isEmpty();
+        assertThat(likeMatrix.getUserIds()).isEmpty();
+    }
+
+    @Test
+    void findSimilarUsers_ShouldOrderByOverlapThenId() {
+        likeMatrix.addLike(1, 10);
+        likeMatrix.addLike(1, 20);
+        likeMatrix.addLike(1, 30);
+        likeMatrix.addLike(2, 10);
+        likeMatrix.addLike(3, 10);
+        likeMatrix.addLike(3, 20);
+        likeMatrix.addLike(4, 10);
+        likeMatrix.addLike(5, 40);
+
+        assertThat(likeMatrix.findSimilarUsers(1, 10)).containsExactly(3, 2, 4);
+        assertThat(likeMatrix.findSimilarUsers(1, 2)).containsExactly(3, 2);
+        assertThat(likeMatrix.findSimilarUsers(6, 10)).isEmpty();
+    }
+
+    @Test
+    void intCounter_ShouldCountAcrossGrowth() {
+        IntCounter counter = new IntCounter(1);
+        for (int key = 0; key < 100; key++) {
+            counter.add(key, key);
+        }
+        counter.increment(0);
+        counter.increment(0);
+
+        assertThat(counter.size()).isEqualTo(100);
+        assertThat(counter.get(99)).isEqualTo(99);
+        assertThat(counter.get(0)).isEqualTo(2);
+        assertThat(counter.get(100)).isZero();
+        assertThat(counter.contains(100)).isFalse();
+        assertThat(counter.topKeys(3)).containsExactly(99, 98, 97);
+    }
+
+    @Test
+    void intCounter_ShouldBreakTiesBySmallerKey() {
+        IntCounter counter = new IntCounter(4);
+        counter.increment(7);
+        counter.increment(3);
+        counter.increment(5);
+        counter.add(5, 1);
+
+        assertThat(counter.topKeys(10)).containsExactly(5, 3, 7);
+        assertThat(counter.topKeys(0)).isEmpty();
+    }
+}
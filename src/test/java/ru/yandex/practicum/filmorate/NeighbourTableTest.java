@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.index.LikeMatrix;
+import ru.yandex.practicum.filmorate.storage.index.NeighbourTable;
+import ru.yandex.practicum.filmorate.storage.index.NeighbourTable.Neighbourhood;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NeighbourTableTest {
+
+    private LikeMatrix likeMatrix;
+    private NeighbourTable neighbourTable;
+
+    @BeforeEach
+    void setUp() {
+        likeMatrix = new LikeMatrix(null);
+        neighbourTable = new NeighbourTable(likeMatrix, 10, 2);
+        likeMatrix.addLike(1, 10);
+        likeMatrix.addLike(1, 20);
+        likeMatrix.addLike(2, 10);
+        likeMatrix.addLike(2, 20);
+        likeMatrix.addLike(2, 30);
+        likeMatrix.addLike(3, 40);
+    }
+
+    @AfterEach
+    void tearDown() {
+        neighbourTable.shutdown();
+    }
+
+    @Test
+    void get_ShouldSuggestFilmsOfSimilarUsersOnly() {
+        Neighbourhood neighbourhood = neighbourTable.get(1);
+
+        assertThat(neighbourhood.similarUserIds()).containsExactly(2);
+        assertThat(neighbourhood.candidateFilmIds()).containsExactly(30);
+    }
+
+    @Test
+    void get_ShouldNotRememberEmptyNeighbourhood() {
+        assertThat(neighbourTable.get(4).similarUserIds()).isEmpty();
+
+        likeMatrix.addLike(4, 10);
+
+        assertThat(neighbourTable.get(4).similarUserIds()).containsExactlyInAnyOrder(1, 2);
+    }
+
+    @Test
+    void invalidate_ShouldRecomputeUserOnNextRead() {
+        assertThat(neighbourTable.get(1).candidateFilmIds()).containsExactly(30);
+
+        likeMatrix.addLike(1, 30);
+        assertThat(neighbourTable.get(1).candidateFilmIds()).containsExactly(30);
+
+        neighbourTable.invalidate(1);
+        assertThat(neighbourTable.get(1).candidateFilmIds()).isEmpty();
+    }
+
+    @Test
+    void refresh_ShouldPrecomputeAllUsers() {
+        neighbourTable.get(1);
+        likeMatrix.addLike(1, 30);
+
+        neighbourTable.refresh();
+
+        assertThat(neighbourTable.get(1).candidateFilmIds()).isEmpty();
+        assertThat(neighbourTable.get(3).similarUserIds()).isEmpty();
+    }
+
+    @Test
+    void scheduleRefresh_ShouldNotBlockCaller() throws InterruptedException {
+        neighbourTable.get(1);
+        likeMatrix.addLike(1, 30);
+
+        neighbourTable.scheduleRefresh();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (neighbourTable.get(1).candidateFilmIds().length > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(neighbourTable.get(1).candidateFilmIds()).isEmpty();
+    }
+}
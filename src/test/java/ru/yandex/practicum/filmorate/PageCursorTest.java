@@ -0,0 +1,68 @@
+package ru.yandex.practicum.filmorate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.FilmProjection;
+import ru.yandex.practicum.filmorate.model.PageCursor;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PageCursorTest {
+
+    @Test
+    void decode_ShouldRestoreEncodedCursor() {
+        PageCursor cursor = new PageCursor("2000-01-01", 42);
+
+        PageCursor decoded = PageCursor.decode(cursor.encode());
+
+        assertThat(decoded).isEqualTo(cursor);
+        assertThat(decoded.dateKey()).isEqualTo(LocalDate.of(2000, 1, 1));
+    }
+
+    @Test
+    void decode_ShouldKeepMissingSortKeyAsNull() {
+        PageCursor decoded = PageCursor.decode(new PageCursor(null, 7).encode());
+
+        assertThat(decoded.getSortKey()).isNull();
+        assertThat(decoded.getId()).isEqualTo(7);
+    }
+
+    @Test
+    void decode_ShouldReturnNullForMissingCursor() {
+        assertThat(PageCursor.decode(null)).isNull();
+    }
+
+    @Test
+    void decode_ShouldRejectMalformedCursor() {
+        assertThatThrownBy(() -> PageCursor.decode("not base64!"))
+                .isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> PageCursor.decode(new PageCursor("5", 1).encode().substring(1)))
+                .isInstanceOf(ValidationException.class);
+    }
+
+    @Test
+    void keys_ShouldRejectCursorOfAnotherSort() {
+        PageCursor byLikes = new PageCursor("15", 3);
+        PageCursor byYear = new PageCursor("2000-01-01", 3);
+
+        assertThat(byLikes.intKey()).isEqualTo(15);
+        assertThatThrownBy(byLikes::dateKey).isInstanceOf(ValidationException.class);
+        assertThatThrownBy(byYear::intKey).isInstanceOf(ValidationException.class);
+    }
+
+    @Test
+    void projection_ShouldOmitUnrequestedFieldsFromJson() throws Exception {
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        FilmProjection projection = FilmProjection.builder()
+                .id(1)
+                .name("Film")
+                .build();
+
+        assertThat(mapper.writeValueAsString(projection)).isEqualTo("{\"id\":1,\"name\":\"Film\"}");
+    }
+}
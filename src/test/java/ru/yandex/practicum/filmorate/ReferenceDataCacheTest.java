@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.DirectorService;
+import ru.yandex.practicum.filmorate.storage.cache.FilmCache;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.storage.dao.DirectorDbStorage;
+import ru.yandex.practicum.filmorate.storage.dao.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.dao.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.dao.LikeDao;
+import ru.yandex.practicum.filmorate.storage.dao.MpaDbStorage;
+import ru.yandex.practicum.filmorate.storage.index.DirectorFilmIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmSuggestIndex;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@Import({FilmDbStorage.class, MpaDbStorage.class, GenreDbStorage.class, DirectorDbStorage.class, FilmCache.class,
+        ReferenceDataCache.class, LikeDao.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class ReferenceDataCacheTest {
+
+    private final ReferenceDataCache referenceData;
+    private final FilmDbStorage filmStorage;
+    private final DirectorDbStorage directorStorage;
+
+    private DirectorService directorService;
+
+    @BeforeEach
+    void setUp() {
+        FilmPopularityIndex popularityIndex = new FilmPopularityIndex(null);
+        directorService = new DirectorService(directorStorage, new FilmSearchIndex(popularityIndex),
+                new FilmSuggestIndex(popularityIndex), new DirectorFilmIndex(popularityIndex), referenceData);
+    }
+
+    @Test
+    void getGenreAndMpa_ShouldReturnSharedInstances() {
+        assertThat(referenceData.getGenre(1)).isSameAs(referenceData.getGenre(1));
+        assertThat(referenceData.getGenres()).contains(referenceData.getGenre(2));
+        assertThat(referenceData.getMpa(1)).isSameAs(referenceData.getMpaRatings().get(0));
+        assertThat(referenceData.getGenre(999)).isNull();
+        assertThat(referenceData.getMpa(-1)).isNull();
+    }
+
+    @Test
+    void readFilms_ShouldReferenceCachedGenreAndMpa() {
+        Film first = filmStorage.create(film("First"));
+        Film second = filmStorage.create(film("Second"));
+
+        Film firstRead = filmStorage.getById(first.getId());
+        Film secondRead = filmStorage.getById(second.getId());
+
+        assertThat(firstRead.getMpa()).isSameAs(referenceData.getMpa(1)).isSameAs(secondRead.getMpa());
+        assertThat(firstRead.getGenres()).singleElement().isSameAs(referenceData.getGenre(1));
+        assertThat(secondRead.getGenres()).singleElement().isSameAs(referenceData.getGenre(1));
+    }
+
+    @Test
+    void directorService_ShouldRefreshCachedDirectors() {
+        Director created = directorService.create(Director.builder().name("Created").build());
+        assertThat(referenceData.hasDirector(created.getId())).isTrue();
+        assertThat(referenceData.getDirector(created.getId()).getName()).isEqualTo("Created");
+
+        directorService.update(Director.builder().id(created.getId()).name("Renamed").build());
+        assertThat(referenceData.getDirector(created.getId()).getName()).isEqualTo("Renamed");
+
+        directorService.delete(created.getId());
+        assertThat(referenceData.hasDirector(created.getId())).isFalse();
+        assertThat(referenceData.getDirector(created.getId())).isNull();
+    }
+
+    @Test
+    void putDirector_ShouldStoreCopyUnaffectedByCallerChanges() {
+        Director director = Director.builder().id(500).name("Original").build();
+        referenceData.putDirector(director);
+
+        director.setName("Changed");
+
+        assertThat(referenceData.getDirector(500).getName()).isEqualTo("Original");
+        referenceData.removeDirector(500);
+    }
+
+    private Film film(String name) {
+        return Film.builder()
+                .name(name)
+                .description("Description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .mpa(referenceData.getMpa(1))
+                .genres(Set.of(referenceData.getGenre(1)))
+                .build();
+    }
+}
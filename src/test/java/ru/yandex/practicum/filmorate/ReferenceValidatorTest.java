@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.exception.DirectorNotFoundException;
+import ru.yandex.practicum.filmorate.exception.MpaNotFoundException;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.service.ReferenceValidator;
+import ru.yandex.practicum.filmorate.storage.cache.FilmCache;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.storage.dao.DirectorDbStorage;
+import ru.yandex.practicum.filmorate.storage.dao.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.dao.MpaDbStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@Import({ReferenceValidator.class, ReferenceDataCache.class, GenreDbStorage.class, MpaDbStorage.class,
+        DirectorDbStorage.class, FilmCache.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class ReferenceValidatorTest {
+
+    private final ReferenceValidator referenceValidator;
+
+    @Test
+    void validate_ShouldReportEveryMissingReferenceInOneMessage() {
+        Film film = Film.builder()
+                .name("Film")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .mpa(MpaRating.builder().id(99).build())
+                .genres(Set.of(Genre.builder().id(1).build(), Genre.builder().id(51).build(),
+                        Genre.builder().id(50).build()))
+                .directors(Set.of(Director.builder().id(778).build(), Director.builder().id(777).build()))
+                .build();
+
+        assertThatThrownBy(() -> referenceValidator.validate(film))
+                .isInstanceOf(MpaNotFoundException.class)
+                .hasMessageContaining("рейтинги MPA с id=[99]")
+                .hasMessageContaining("жанры с id=[50, 51]")
+                .hasMessageContaining("режиссеры с id=[777, 778]");
+    }
+
+    @Test
+    void validateAll_ShouldCollectMissingIdsAcrossFilms() {
+        Film first = Film.builder()
+                .name("First")
+                .mpa(MpaRating.builder().id(1).build())
+                .directors(Set.of(Director.builder().id(901).build()))
+                .build();
+        Film second = Film.builder()
+                .name("Second")
+                .mpa(MpaRating.builder().id(2).build())
+                .directors(Set.of(Director.builder().id(902).build()))
+                .build();
+
+        assertThatThrownBy(() -> referenceValidator.validateAll(List.of(first, second)))
+                .isInstanceOf(DirectorNotFoundException.class)
+                .hasMessage("Не найдены режиссеры с id=[901, 902]");
+    }
+
+    @Test
+    void validate_ShouldAcceptKnownReferences() {
+        Film film = Film.builder()
+                .name("Film")
+                .mpa(MpaRating.builder().id(1).build())
+                .genres(Set.of(Genre.builder().id(1).build(), Genre.builder().id(2).build()))
+                .build();
+
+        assertThatCode(() -> referenceValidator.validate(film)).doesNotThrowAnyException();
+    }
+}
@@ -10,7 +10,10 @@ import org.springframework.context.annotation.Import;
 import org.springframework.jdbc.core.JdbcTemplate;
 import ru.yandex.practicum.filmorate.exception.ReviewNotFoundException;
 import ru.yandex.practicum.filmorate.model.*;
+import ru.yandex.practicum.filmorate.storage.cache.FilmCache;
+import ru.yandex.practicum.filmorate.storage.cache.ReferenceDataCache;
 import ru.yandex.practicum.filmorate.storage.dao.*;
+import ru.yandex.practicum.filmorate.storage.review.UsefulChange;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -21,7 +24,8 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @JdbcTest
 @AutoConfigureTestDatabase
-@Import({ReviewDbStorage.class, FilmDbStorage.class, UserDbStorage.class, MpaDbStorage.class, GenreDbStorage.class})
+@Import({ReviewDbStorage.class, FilmDbStorage.class, UserDbStorage.class, MpaDbStorage.class, GenreDbStorage.class,
+        DirectorDbStorage.class, FilmCache.class, ReferenceDataCache.class, ReviewUsefulBuffer.class})
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 class ReviewDbStorageTest {
 
@@ -76,6 +80,22 @@ class ReviewDbStorageTest {
         assertThat(createdReview.getContent()).isEqualTo("This film is great!");
     }
 
+    @Test
+    void forgetDeleted_ShouldDropOnlyCascadedReviews() {
+        Review filmReview = reviewStorage.create(testReview);
+        Film otherFilm = filmStorage.create(testFilm.toBuilder().id(0).name("Other Film").build());
+        Review otherReview = reviewStorage.create(testReview.toBuilder().filmId(otherFilm.getId()).build());
+
+        List<Integer> cascaded = reviewStorage.getIdsByFilmId(testFilm.getId());
+        filmStorage.deleteFilm(testFilm.getId());
+        reviewStorage.forgetDeleted(cascaded);
+
+        assertThat(cascaded).containsExactly(filmReview.getReviewId());
+        assertThat(reviewStorage.exists(filmReview.getReviewId())).isFalse();
+        assertThat(reviewStorage.exists(otherReview.getReviewId())).isTrue();
+        assertThat(reviewStorage.getIdsByUserId(testUser.getId())).containsExactly(otherReview.getReviewId());
+    }
+
     @Test
     void updateReview_ShouldUpdateContent() {
         Review createdReview = reviewStorage.create(testReview);
@@ -107,6 +127,16 @@ class ReviewDbStorageTest {
         assertThat(foundReview).isEqualTo(createdReview);
     }
 
+    @Test
+    void getByIds_ShouldReturnOnlyRequestedReviews() {
+        Review first = reviewStorage.create(testReview);
+        reviewStorage.create(testReview.toBuilder().content("Second review").build());
+
+        List<Review> reviews = reviewStorage.getByIds(List.of(first.getReviewId(), 999));
+
+        assertThat(reviews).containsExactly(first);
+    }
+
     @Test
     void getById_ShouldThrowExceptionForNonExistingReview() {
         assertThatThrownBy(() -> reviewStorage.getById(999))
@@ -195,6 +225,18 @@ class ReviewDbStorageTest {
         assertThat(afterDislike.getUseful()).isEqualTo(-1);
     }
 
+    @Test
+    void votes_ShouldReturnNewUsefulAndIgnoreRepeats() {
+        Review createdReview = reviewStorage.create(testReview);
+        int reviewId = createdReview.getReviewId();
+
+        assertThat(reviewStorage.addLike(reviewId, testUser.getId())).isEqualTo(new UsefulChange(1, 1));
+        assertThat(reviewStorage.addLike(reviewId, testUser.getId())).isEqualTo(new UsefulChange(0, 1));
+        assertThat(reviewStorage.addDislike(reviewId, testUser.getId())).isEqualTo(new UsefulChange(-2, -1));
+        assertThat(reviewStorage.removeLike(reviewId, testUser.getId())).isEqualTo(new UsefulChange(0, -1));
+        assertThat(reviewStorage.removeDislike(reviewId, testUser.getId())).isEqualTo(new UsefulChange(1, 0));
+    }
+
     @Test
     void changeDislikeToLike_ShouldUpdateUseful() {
         Review createdReview = reviewStorage.create(testReview);
@@ -0,0 +1,114 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.storage.index.ReviewRankingIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReviewRankingIndexTest {
+
+    private final ReviewRankingIndex index = new ReviewRankingIndex(null);
+
+    @Test
+    void getTopReviewIds_ShouldOrderByUsefulThenId() {
+        index.addReview(review(1, 10, 1, 0));
+        index.addReview(review(2, 10, 1, 5));
+        index.addReview(review(3, 20, 1, 5));
+
+        assertThat(index.getTopReviewIds(null, 10)).containsExactly(2, 3, 1);
+        assertThat(index.getTopReviewIds(10, 10)).containsExactly(2, 1);
+        assertThat(index.getTopReviewIds(null, 2)).containsExactly(2, 3);
+        assertThat(index.getTopReviewIds(30, 10)).isEmpty();
+    }
+
+    @Test
+    void addReview_ShouldKeepReviewWhenReaddedWithSameUseful() {
+        index.addReview(review(1, 10, 1, 3));
+        index.addReview(review(1, 10, 1, 3));
+
+        assertThat(index.getTopReviewIds(null, 10)).containsExactly(1);
+        assertThat(index.getTopReviewIds(10, 10)).containsExactly(1);
+    }
+
+    @Test
+    void addUseful_ShouldNotDependOnOrderOfChanges() {
+        index.addReview(review(1, 10, 1, 0));
+        index.addReview(review(2, 10, 1, 1));
+
+        // два голоса за первый отзыв: ответ второго пришёл раньше ответа первого
+        index.addUseful(1, 1);
+        index.addUseful(1, 1);
+        index.addUseful(2, 0);
+
+        assertThat(index.getTopReviewIds(10, 10)).containsExactly(1, 2);
+    }
+
+    @Test
+    void addUseful_ShouldIgnoreUnknownReview() {
+        index.addUseful(1, 1);
+
+        assertThat(index.getTopReviewIds(null, 10)).isEmpty();
+    }
+
+    @Test
+    void removeFilmAndUser_ShouldDropTheirReviews() {
+        index.addReview(review(1, 10, 1, 0));
+        index.addReview(review(2, 20, 1, 0));
+        index.addReview(review(3, 20, 2, 0));
+
+        index.removeFilm(10);
+        assertThat(index.getTopReviewIds(null, 10)).containsExactly(2, 3);
+
+        index.removeUser(1);
+        assertThat(index.getTopReviewIds(null, 10)).containsExactly(3);
+        assertThat(index.getTopReviewIds(10, 10)).isEmpty();
+    }
+
+    @Test
+    void addUseful_ShouldSumConcurrentChanges() throws Exception {
+        index.addReview(review(1, 10, 1, 0));
+        index.addReview(review(2, 10, 1, 100));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 1000; j++) {
+                        index.addUseful(1, 2);
+                        index.addUseful(1, -1);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // 8000 > 100, поэтому первый отзыв должен оказаться выше второго ровно один раз
+        assertThat(index.getTopReviewIds(10, 10)).containsExactly(1, 2);
+        index.addUseful(2, 7900);
+        assertThat(index.getTopReviewIds(10, 10)).containsExactly(1, 2);
+        index.addUseful(2, 1);
+        assertThat(index.getTopReviewIds(10, 10)).containsExactly(2, 1);
+    }
+
+    private Review review(int reviewId, int filmId, int userId, int useful) {
+        return Review.builder()
+                .reviewId(reviewId)
+                .filmId(filmId)
+                .userId(userId)
+                .useful(useful)
+                .content("Review " + reviewId)
+                .isPositive(true)
+                .build();
+    }
+}
@@ -0,0 +1,101 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.storage.dao.ReviewDbStorage;
+import ru.yandex.practicum.filmorate.storage.dao.ReviewUsefulBuffer;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class ReviewUsefulBufferTest {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private int reviewId;
+    private int filmId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)",
+                "buffer@example.com", "buffer", "Buffer", LocalDate.of(1990, 1, 1));
+        int userId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM users", Integer.class);
+        jdbcTemplate.update("INSERT INTO films (name, description, release_date, duration, mpa_rating_id) " +
+                "VALUES (?, ?, ?, ?, ?)", "Film", "Description", LocalDate.of(2000, 1, 1), 100, 1);
+        filmId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM films", Integer.class);
+        jdbcTemplate.update("INSERT INTO reviews (content, is_positive, user_id, film_id, useful) " +
+                "VALUES (?, ?, ?, ?, ?)", "Review", true, userId, filmId, 3);
+        reviewId = jdbcTemplate.queryForObject("SELECT MAX(review_id) FROM reviews", Integer.class);
+    }
+
+    @Test
+    void flush_ShouldMoveAccumulatedDeltaToDatabase() {
+        ReviewUsefulBuffer buffer = new ReviewUsefulBuffer(jdbcTemplate, true, 60000);
+        buffer.add(reviewId, 1);
+        buffer.add(reviewId, 1);
+        buffer.add(reviewId, -3);
+        assertThat(buffer.getPending(reviewId)).isEqualTo(-1);
+
+        buffer.flush();
+
+        assertThat(buffer.getPending(reviewId)).isZero();
+        assertThat(storedUseful()).isEqualTo(2);
+    }
+
+    @Test
+    void flush_ShouldForgetDeletedReview() {
+        ReviewUsefulBuffer buffer = new ReviewUsefulBuffer(jdbcTemplate, true, 60000);
+        buffer.add(reviewId + 1, 5);
+
+        buffer.flush();
+
+        assertThat(buffer.getPending(reviewId + 1)).isZero();
+        assertThat(storedUseful()).isEqualTo(3);
+    }
+
+    @Test
+    void flush_ShouldDoNothingWhenDisabled() {
+        ReviewUsefulBuffer buffer = new ReviewUsefulBuffer(jdbcTemplate, false, 60000);
+        buffer.start();
+        buffer.add(reviewId, 1);
+
+        buffer.flush();
+        buffer.shutdown();
+
+        assertThat(buffer.getPending(reviewId)).isEqualTo(1);
+        assertThat(storedUseful()).isEqualTo(3);
+    }
+
+    @Test
+    void getReviewsByFilmId_ShouldSortWithPendingDeltas() {
+        int userId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM users", Integer.class);
+        jdbcTemplate.update("INSERT INTO reviews (content, is_positive, user_id, film_id, useful) " +
+                "VALUES (?, ?, ?, ?, ?)", "Second", true, userId, filmId, 5);
+        int secondId = jdbcTemplate.queryForObject("SELECT MAX(review_id) FROM reviews", Integer.class);
+        ReviewUsefulBuffer buffer = new ReviewUsefulBuffer(jdbcTemplate, true, 60000);
+        ReviewDbStorage storage = new ReviewDbStorage(jdbcTemplate, buffer);
+        buffer.add(reviewId, 4);
+
+        List<Review> reviews = storage.getReviewsByFilmId(filmId, 10);
+
+        assertThat(reviews).extracting(Review::getReviewId).containsExactly(reviewId, secondId);
+        assertThat(reviews).extracting(Review::getUseful).containsExactly(7, 5);
+        assertThat(buffer.getPending(reviewId)).isZero();
+    }
+
+    private int storedUseful() {
+        return jdbcTemplate.queryForObject("SELECT useful FROM reviews WHERE review_id = ?", Integer.class,
+                reviewId);
+    }
+}
@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.index.SortedIntArrays;
+import ru.yandex.practicum.filmorate.storage.index.SortedIntArrays.IntList;
+import ru.yandex.practicum.filmorate.storage.index.SortedIntSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SortedIntArraysTest {
+
+    @Test
+    void insertAndRemove_ShouldKeepOrderAndReturnSameArrayWhenUnchanged() {
+        int[] values = SortedIntArrays.insert(SortedIntArrays.EMPTY, 5);
+        values = SortedIntArrays.insert(values, 1);
+        values = SortedIntArrays.insert(values, 3);
+
+        assertThat(values).containsExactly(1, 3, 5);
+        assertThat(SortedIntArrays.insert(values, 3)).isSameAs(values);
+        assertThat(SortedIntArrays.remove(values, 4)).isSameAs(values);
+        assertThat(SortedIntArrays.remove(values, 1)).containsExactly(3, 5);
+        assertThat(values).containsExactly(1, 3, 5);
+        assertThat(SortedIntArrays.remove(null, 1)).isEmpty();
+    }
+
+    @Test
+    void intersect_ShouldReturnCommonValues() {
+        assertThat(SortedIntArrays.intersect(new int[]{1, 2, 4, 8}, new int[]{2, 3, 4, 9})).containsExactly(2, 4);
+        assertThat(SortedIntArrays.intersect(new int[]{1}, SortedIntArrays.EMPTY)).isEmpty();
+    }
+
+    @Test
+    void intList_ShouldGrowAndSort() {
+        IntList list = new IntList();
+        for (int i = 10; i > 0; i--) {
+            list.add(i);
+        }
+
+        assertThat(list.toSortedArray()).containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+    }
+
+    @Test
+    void sortedIntSet_ShouldInsertInPlaceAndGrow() {
+        SortedIntSet set = new SortedIntSet();
+        for (int value : new int[]{7, 3, 9, 1, 5, 3}) {
+            set.add(value);
+        }
+
+        assertThat(set.size()).isEqualTo(5);
+        assertThat(set.toArray()).containsExactly(1, 3, 5, 7, 9);
+        assertThat(set.add(5)).isFalse();
+        assertThat(set.contains(7)).isTrue();
+    }
+
+    @Test
+    void sortedIntSet_ShouldRemoveAndReuseCapacity() {
+        SortedIntSet set = new SortedIntSet(new int[]{2, 4, 6});
+
+        assertThat(set.remove(4)).isTrue();
+        assertThat(set.remove(4)).isFalse();
+        assertThat(set.toArray()).containsExactly(2, 6);
+
+        set.add(1);
+        set.add(8);
+        assertThat(set.toArray()).containsExactly(1, 2, 6, 8);
+        assertThat(set.get(0)).isEqualTo(1);
+
+        set.remove(1);
+        set.remove(2);
+        set.remove(6);
+        set.remove(8);
+        assertThat(set.isEmpty()).isTrue();
+        assertThat(set.contains(2)).isFalse();
+    }
+
+    @Test
+    void sortedIntSet_ShouldReturnIndependentCopy() {
+        SortedIntSet set = new SortedIntSet(new int[]{1, 2});
+        int[] copy = set.toArray();
+
+        set.add(0);
+
+        assertThat(copy).containsExactly(1, 2);
+    }
+}
@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate;
+
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+
+// Заготовка фильма для тестов индексов: им важны id, название, год выхода, жанры и режиссёры
+final class TestFilms {
+
+    private TestFilms() {
+    }
+
+    static Film.FilmBuilder film(int id, int year) {
+        return Film.builder()
+                .id(id)
+                .name("Film " + id)
+                .releaseDate(LocalDate.of(year, 1, 1))
+                .duration(100);
+    }
+}
@@ -8,6 +8,8 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
 import ru.yandex.practicum.filmorate.exception.UserNotFoundException;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.model.PageCursor;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.dao.UserDbStorage;
 
@@ -85,6 +87,19 @@ class UserDbStorageTest {
         assertThat(users).containsExactlyInAnyOrder(user1, user2);
     }
 
+    @Test
+    void getUsersPage_ShouldReturnNextCursorUntilLastPage() {
+        User user1 = userStorage.create(testUser);
+        User user2 = userStorage.create(testUser.toBuilder().email("another@example.com").login("anotherlogin").build());
+
+        Page<User> firstPage = userStorage.getUsersPage(null, 1);
+        Page<User> secondPage = userStorage.getUsersPage(PageCursor.decode(firstPage.getNextCursor()), 1);
+
+        assertThat(firstPage.getItems()).containsExactly(user1);
+        assertThat(secondPage.getItems()).containsExactly(user2);
+        assertThat(secondPage.getNextCursor()).isNull();
+    }
+
     @Test
     void deleteUser_ShouldRemoveUser() {
         User createdUser = userStorage.create(testUser);
@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.index.WeightedTrie;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WeightedTrieTest {
+
+    private final WeightedTrie trie = new WeightedTrie();
+
+    @Test
+    void top_ShouldReturnHeaviestTextsForPrefix() {
+        trie.put("inception", 1, "Inception", 5);
+        trie.put("interstellar", 2, "Interstellar", 9);
+        trie.put("insomnia", 3, "Insomnia", 1);
+        trie.put("dune", 4, "Dune", 20);
+
+        assertThat(trie.top("in", 10)).containsExactly("Interstellar", "Inception", "Insomnia");
+        assertThat(trie.top("in", 2)).containsExactly("Interstellar", "Inception");
+        assertThat(trie.top("", 1)).containsExactly("Dune");
+        assertThat(trie.top("x", 10)).isEmpty();
+    }
+
+    @Test
+    void top_ShouldCollapseSameTextFromDifferentOwners() {
+        trie.put("dune", 1, "Dune", 3);
+        trie.put("dune", 2, "Dune", 7);
+        trie.put("dunkirk", 3, "Dunkirk", 5);
+
+        assertThat(trie.top("dun", 10)).containsExactly("Dune", "Dunkirk");
+    }
+
+    @Test
+    void remove_ShouldDropEntryAndRecomputeWeights() {
+        trie.put("inception", 1, "Inception", 5);
+        trie.put("interstellar", 2, "Interstellar", 9);
+
+        trie.remove("interstellar", 2);
+        trie.remove("interstellar", 2);
+        trie.remove("missing", 7);
+
+        assertThat(trie.top("in", 10)).containsExactly("Inception");
+        assertThat(trie.top("inte", 10)).isEmpty();
+
+        trie.put("insomnia", 3, "Insomnia", 6);
+        assertThat(trie.top("in", 10)).containsExactly("Insomnia", "Inception");
+    }
+}
@@ -35,9 +35,13 @@ CREATE TABLE IF NOT EXISTS films (
     description VARCHAR(200),
     release_date DATE NOT NULL,
     duration INTEGER NOT NULL,
-    mpa_rating_id INTEGER REFERENCES mpa_ratings(id)
+    mpa_rating_id INTEGER REFERENCES mpa_ratings(id),
+    like_count INTEGER NOT NULL DEFAULT 0
 );
 
+CREATE INDEX IF NOT EXISTS idx_films_like_count ON films (like_count DESC, id);
+CREATE INDEX IF NOT EXISTS idx_films_release_date ON films (release_date, id);
+
 CREATE TABLE IF NOT EXISTS film_genres (
     film_id INTEGER NOT NULL REFERENCES films(id) ON DELETE CASCADE,
     genre_id INTEGER NOT NULL REFERENCES genres(id),
@@ -66,6 +70,9 @@ CREATE TABLE IF NOT EXISTS feed_events (
     entity_id INTEGER NOT NULL
 );
 
+CREATE INDEX IF NOT EXISTS idx_feed_events_user_timestamp ON feed_events (user_id, timestamp);
+CREATE INDEX IF NOT EXISTS idx_feed_events_user_event ON feed_events (user_id, event_id);
+
 CREATE TABLE IF NOT EXISTS reviews (
     review_id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     content TEXT NOT NULL,
@@ -75,6 +82,8 @@ CREATE TABLE IF NOT EXISTS reviews (
     useful INTEGER DEFAULT 0
 );
 
+CREATE INDEX IF NOT EXISTS idx_reviews_film_useful ON reviews (film_id, useful DESC);
+
 CREATE TABLE IF NOT EXISTS review_likes (
     review_id INTEGER NOT NULL REFERENCES reviews(review_id) ON DELETE CASCADE,
     user_id INTEGER NOT NULL REFERENCES users(id) ON DELETE CASCADE,
@@ -91,4 +100,6 @@ CREATE TABLE IF NOT EXISTS film_directors (
     film_id INTEGER NOT NULL REFERENCES films(id) ON DELETE CASCADE,
     director_id INTEGER NOT NULL REFERENCES directors(id) ON DELETE CASCADE,
     PRIMARY KEY (film_id, director_id)
-);
\ No newline at end of file
+);
+
+CREATE INDEX IF NOT EXISTS idx_film_directors_director ON film_directors (director_id, film_id);